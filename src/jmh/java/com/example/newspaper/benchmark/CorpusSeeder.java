@@ -0,0 +1,167 @@
+package com.example.newspaper.benchmark;
+
+import com.example.newspaper.NewspaperApplication;
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Author;
+import com.example.newspaper.server.ArticleCountService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds an empty H2 database with a synthetic corpus for load tests (see {@link LoadDriver}): articles with
+ * Zipf-distributed authors and sites and a share of near-duplicates, as {@link SyntheticCorpus.Generator}
+ * generates them. The schema is created by the application itself, started without a web server; the rows
+ * are then inserted in JDBC batches, with the title bands, the article counts and the sequences the
+ * application would have written. Not a JMH benchmark:
+ * <pre>
+ * ./mvnw -P benchmark test-compile exec:exec -Dbenchmark.main=com.example.newspaper.benchmark.CorpusSeeder \
+ *     -Djmh.args="jdbc:h2:file:./target/load/newspaper 1000000 0.05"
+ * </pre>
+ * The arguments are the database, the number of articles (1000000), the share of near-duplicates (0.05)
+ * and the seed (42). The application is then started on the same database for the load test.
+ */
+public class CorpusSeeder {
+    private static final int BATCH_SIZE = 1000;
+    private static final int COMMIT_SIZE = 20_000;
+    private static final int DUPLICATE_WINDOW = 100_000;
+    private static final int AUTHORS_PER_ARTICLE = 2;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "jdbc:h2:file:./target/load/newspaper";
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        double duplicateRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        // devtools is on the test classpath, its restart would run this main again
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try(ConfigurableApplicationContext context = new SpringApplicationBuilder(NewspaperApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url, "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.main.banner-mode=off")){
+            long start = System.nanoTime();
+            try(Connection connection = context.getBean(DataSource.class).getConnection()){
+                connection.setAutoCommit(false);
+                seed(connection, size, duplicateRate, seed);
+            }
+            context.getBean(ArticleCountService.class).rebuild();
+            System.out.printf("Seeded %d articles in %d s%n", size, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        }
+    }
+
+    private static void seed(Connection connection, int size, double duplicateRate, long seed) throws SQLException {
+        try(Statement statement = connection.createStatement();
+            ResultSet articles = statement.executeQuery("select count(*) from article")){
+            articles.next();
+            if(articles.getLong(1) > 0){
+                throw new IllegalStateException("The database has articles already, only an empty one is seeded");
+            }
+        }
+
+        int authorCount = Math.max(AUTHORS_PER_ARTICLE, size / 10);
+        int siteCount = Math.max(1, size / 1000);
+        SyntheticCorpus.Generator generator = new SyntheticCorpus.Generator(authorCount, AUTHORS_PER_ARTICLE,
+                duplicateRate, Math.min(size, DUPLICATE_WINDOW), seed);
+        // the sites are drawn from a generator of their own, the articles stay those of the seed
+        SplittableRandom siteRandom = new SplittableRandom(seed + 1);
+        SyntheticCorpus.ZipfSampler siteSampler = new SyntheticCorpus.ZipfSampler(siteCount, 1.1);
+
+        try(PreparedStatement authors = connection.prepareStatement(
+                "insert into author (id, version, full_name, normalized_name) values (?, 0, ?, ?)")){
+            int batched = 0;
+            for(Author author : generator.getAuthors()){
+                authors.setInt(1, author.getId());
+                authors.setString(2, author.getFullName());
+                authors.setString(3, author.getNormalizedName());
+                authors.addBatch();
+                if(++batched % BATCH_SIZE == 0){
+                    authors.executeBatch();
+                }
+            }
+            authors.executeBatch();
+        }
+        try(PreparedStatement sites = connection.prepareStatement("insert into site (id, version, weblink) values (?, 0, ?)")){
+            for(int id = 1; id <= siteCount; id++){
+                sites.setInt(1, id);
+                sites.setString(2, "https://site" + id + ".example.com");
+                sites.addBatch();
+                if(id % BATCH_SIZE == 0){
+                    sites.executeBatch();
+                }
+            }
+            sites.executeBatch();
+        }
+        connection.commit();
+
+        // the band of a title is random, the index on it is built once from all the bands instead of row by row
+        try(Statement statement = connection.createStatement()){
+            statement.execute("drop index idx_article_title_band");
+        }
+        try(PreparedStatement articles = connection.prepareStatement("insert into article (id, version, title_english, "
+                + "title_german, issn_number, isbn_number, year_publication, edition_number) values (?, 0, ?, ?, ?, ?, ?, ?)");
+            PreparedStatement articleAuthors = connection.prepareStatement(
+                    "insert into article_author (article_id, author_id) values (?, ?)");
+            PreparedStatement articleSites = connection.prepareStatement(
+                    "insert into article_site (article_id, site_id) values (?, ?)");
+            PreparedStatement titleBands = connection.prepareStatement(
+                    "insert into article_title_band (article_id, band) values (?, ?)")){
+            for(int id = 1; id <= size; id++){
+                Article article = generator.next(id);
+                articles.setInt(1, id);
+                articles.setString(2, article.getTitleEnglish());
+                articles.setString(3, article.getTitleGerman());
+                articles.setInt(4, article.getIssnNumber());
+                articles.setInt(5, article.getIsbnNumber());
+                articles.setInt(6, article.getYearPublication());
+                articles.setInt(7, article.getEditionNumber());
+                articles.addBatch();
+                for(Author author : article.getAuthors()){
+                    articleAuthors.setInt(1, id);
+                    articleAuthors.setInt(2, author.getId());
+                    articleAuthors.addBatch();
+                }
+                articleSites.setInt(1, id);
+                articleSites.setInt(2, siteSampler.sample(siteRandom));
+                articleSites.addBatch();
+                for(Long band : article.getTitleBands()){
+                    titleBands.setInt(1, id);
+                    titleBands.setLong(2, band);
+                    titleBands.addBatch();
+                }
+
+                if(id % BATCH_SIZE == 0 || id == size){
+                    // the articles first, the other rows reference them
+                    articles.executeBatch();
+                    articleAuthors.executeBatch();
+                    articleSites.executeBatch();
+                    titleBands.executeBatch();
+                }
+                if(id % COMMIT_SIZE == 0 || id == size){
+                    connection.commit();
+                    System.out.printf("%d articles%n", id);
+                }
+            }
+        }
+
+        try(Statement statement = connection.createStatement()){
+            statement.execute("create index idx_article_title_band on article_title_band (band)");
+        }
+
+        // past the seeded ids, whichever end of its block of 50 the pooled optimizer takes a sequence value for
+        try(Statement statement = connection.createStatement()){
+            statement.execute("alter sequence article_seq restart with " + (size + 101));
+            statement.execute("alter sequence author_seq restart with " + (authorCount + 101));
+            statement.execute("alter sequence site_seq restart with " + (siteCount + 101));
+        }
+        connection.commit();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.newspaper.benchmark;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Author;
+import com.example.newspaper.repository.ArticleRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@link ArticleRepository} backed by hash indexes over a {@link SyntheticCorpus}.
+ * It answers the duplicate candidate queries like the database indexes would, so benchmarks
+ * measure the duplicate detection itself rather than the database. Other methods are not supported.
+ */
+public final class InMemoryArticleRepository {
+    private final Map<Integer, Article> byId = new HashMap<>();
+    private final Map<String, List<Integer>> byTitleEnglish = new HashMap<>();
+    private final Map<String, List<Integer>> byTitleGerman = new HashMap<>();
+    private final Map<Long, List<Integer>> byTitleBand = new HashMap<>();
+    private final Map<List<Integer>, List<Integer>> byIdentifiers = new HashMap<>();
+
+    private InMemoryArticleRepository(Collection<Article> articles) {
+        for(Article article : articles){
+            byId.put(article.getId(), article);
+            byTitleEnglish.computeIfAbsent(article.getTitleEnglish(), key -> new ArrayList<>()).add(article.getId());
+            byTitleGerman.computeIfAbsent(article.getTitleGerman(), key -> new ArrayList<>()).add(article.getId());
+            for(Long band : article.getTitleBands()){
+                byTitleBand.computeIfAbsent(band, key -> new ArrayList<>()).add(article.getId());
+            }
+            for(Author author : article.getAuthors()){
+                byIdentifiers.computeIfAbsent(List.of(article.getIssnNumber(), article.getIsbnNumber(),
+                        article.getEditionNumber(), author.getId()), key -> new ArrayList<>()).add(article.getId());
+            }
+        }
+    }
+
+    public static ArticleRepository of(Collection<Article> articles){
+        InMemoryArticleRepository repository = new InMemoryArticleRepository(articles);
+        return (ArticleRepository) Proxy.newProxyInstance(ArticleRepository.class.getClassLoader(),
+                new Class<?>[]{ArticleRepository.class},
+                (proxy, method, args) -> repository.invoke(method.getName(), args));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invoke(String method, Object[] args){
+        switch (method) {
+            case "findIdsByTitleEnglish":
+                return byTitleEnglish.getOrDefault((String) args[0], Collections.emptyList());
+            case "findIdsByTitleGerman":
+                return byTitleGerman.getOrDefault((String) args[0], Collections.emptyList());
+            case "findIdsByTitleBands":
+                Set<Integer> ids = new LinkedHashSet<>();
+                for(Long band : (Collection<Long>) args[0]){
+                    ids.addAll(byTitleBand.getOrDefault(band, Collections.emptyList()));
+                }
+                return new ArrayList<>(ids);
+            case "findIdsByIdentifiersAndAuthors":
+                Set<Integer> identifierIds = new LinkedHashSet<>();
+                for(Integer authorId : (Collection<Integer>) args[3]){
+                    identifierIds.addAll(byIdentifiers.getOrDefault(
+                            List.of(args[0], args[1], args[2], authorId), Collections.emptyList()));
+                }
+                return new ArrayList<>(identifierIds);
+            case "findDistinctByIdInOrderByIdAsc":
+                List<Article> found = new ArrayList<>();
+                ((Collection<Integer>) args[0]).stream().sorted().forEach(id -> {
+                    Article article = byId.get(id);
+                    if(article != null){
+                        found.add(article);
+                    }
+                });
+                return found;
+            case "toString":
+                return "InMemoryArticleRepository";
+            default:
+                throw new UnsupportedOperationException(method);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.newspaper.benchmark;
+
+import com.example.newspaper.dto.CursorPage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays a mixed workload against the running application and reports the throughput and the p50, p99 and p999
+ * latency of every endpoint. Reads (articles by id and by page, the search, the counts), writes (creating and
+ * updating articles, with Zipf-distributed authors) and duplicate checks (synchronous and as background jobs)
+ * are sent by concurrent workers in the proportions of {@link #OPERATIONS}, for ids of the corpus the
+ * {@link CorpusSeeder} wrote. Not a JMH benchmark, the application runs in a process of its own:
+ * <pre>
+ * java -Dspring.datasource.url=jdbc:h2:file:./target/load/newspaper -jar target/Newspaper-0.0.1-SNAPSHOT.jar
+ * ./mvnw -P benchmark test-compile exec:exec -Dbenchmark.main=com.example.newspaper.benchmark.LoadDriver \
+ *     -Djmh.args="http://localhost:8080 60 16 0"
+ * </pre>
+ * The arguments are the address of the application, the seconds measured (60), the number of workers (16)
+ * and the requests per second of all workers together (0). With 0 every worker sends its next request as soon as
+ * the last one is answered (a closed loop, the throughput is what the application sustains). With a rate the
+ * requests are sent on a fixed schedule and the latency is taken from the time a request was due, so requests held
+ * up by a slow one count the wait as well (no coordinated omission). The first 10 seconds warm up and are not
+ * reported. The corpus size is read from the article counts of the application.
+ */
+public class LoadDriver {
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final Pattern COUNT = Pattern.compile("\"articles\":(\\d+)");
+
+    private static final Operation[] OPERATIONS = {
+            new Operation("GET /articles/{id}", 35),
+            new Operation("GET /articles?cursor", 15),
+            new Operation("GET /articles/search", 10),
+            new Operation("GET /stats/years", 5),
+            new Operation("GET /articles/{id}/duplicates", 10),
+            new Operation("POST /articles/{id}/duplicate-checks", 5),
+            new Operation("POST /articles", 10),
+            new Operation("PUT /articles/{id}", 10)
+    };
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(TIMEOUT)
+            .build();
+    private final String base;
+    private final int corpusSize;
+    private final int authorCount;
+    private final List<String> words;
+
+    private LoadDriver(String base, int corpusSize) {
+        this.base = base;
+        this.corpusSize = corpusSize;
+        this.authorCount = Math.max(2, corpusSize / 10);
+        // words the titles of the corpus are made of, for the searches and the titles of the writes
+        SyntheticCorpus.Generator generator = new SyntheticCorpus.Generator(authorCount, 2, 0, 1, 42);
+        this.words = new ArrayList<>();
+        for(int id = 1; id <= 1000; id++){
+            words.add(generator.next(id).getTitleEnglish().split(" ")[0]);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 60);
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        double rate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+
+        LoadDriver driver = new LoadDriver(base, corpusSize(base));
+        System.out.printf("%d articles, %d workers, %s, %d s after %d s of warmup%n", driver.corpusSize, workers,
+                rate > 0 ? rate + " requests/s" : "closed loop", duration.toSeconds(), WARMUP.toSeconds());
+
+        long start = System.nanoTime();
+        long measureFrom = start + WARMUP.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<Recorder[]>> futures = new ArrayList<>();
+        for(int worker = 0; worker < workers; worker++){
+            long seed = worker;
+            // every worker sends its share of the rate, the workers are spread over the first interval
+            long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * workers / rate) : 0;
+            long firstDue = start + interval * worker / workers;
+            futures.add(executor.submit(() -> driver.run(new SplittableRandom(seed), firstDue, interval, measureFrom, end)));
+        }
+        Recorder[] total = Recorder.forOperations();
+        for(Future<Recorder[]> future : futures){
+            Recorder[] recorders = future.get();
+            for(int i = 0; i < total.length; i++){
+                total[i].addAll(recorders[i]);
+            }
+        }
+        executor.shutdown();
+        report(total, duration);
+    }
+
+    private Recorder[] run(SplittableRandom random, long firstDue, long interval, long measureFrom, long end){
+        Recorder[] recorders = Recorder.forOperations();
+        SyntheticCorpus.ZipfSampler authorSampler = new SyntheticCorpus.ZipfSampler(authorCount, 1.1);
+        int totalWeight = Arrays.stream(OPERATIONS).mapToInt(operation -> operation.weight).sum();
+        long due = firstDue;
+        while(true){
+            long sent;
+            if(interval > 0){
+                long wait = due - System.nanoTime();
+                if(wait > 0){
+                    LockSupport.parkNanos(wait);
+                }
+                sent = due;
+                due += interval;
+            }
+            else {
+                sent = System.nanoTime();
+            }
+            if(sent >= end){
+                return recorders;
+            }
+
+            int pick = random.nextInt(totalWeight);
+            int index = 0;
+            while(pick >= OPERATIONS[index].weight){
+                pick -= OPERATIONS[index].weight;
+                index++;
+            }
+            HttpRequest request = request(index, random, authorSampler);
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return recorders;
+            }
+            if(sent >= measureFrom){
+                recorders[index].record(System.nanoTime() - sent, status);
+            }
+        }
+    }
+
+    private HttpRequest request(int operation, SplittableRandom random, SyntheticCorpus.ZipfSampler authorSampler){
+        int id = 1 + random.nextInt(corpusSize);
+        switch(operation){
+            case 0:
+                return get("/articles/" + id);
+            case 1:
+                return get("/articles?size=20&cursor=" + CursorPage.encodeCursor(id));
+            case 2:
+                return get("/articles/search?size=20&q=" + URLEncoder.encode(words.get(random.nextInt(words.size())),
+                        StandardCharsets.UTF_8));
+            case 3:
+                return get("/stats/years");
+            case 4:
+                return get("/articles/" + id + "/duplicates");
+            case 5:
+                return send("POST", "/articles/" + id + "/duplicate-checks", HttpRequest.BodyPublishers.noBody());
+            case 6:
+                return send("POST", "/articles", json(null, random, authorSampler));
+            default:
+                return send("PUT", "/articles/" + id, json(id, random, authorSampler));
+        }
+    }
+
+    private HttpRequest get(String path){
+        return HttpRequest.newBuilder(URI.create(base + path)).timeout(TIMEOUT).build();
+    }
+
+    private HttpRequest send(String method, String path, HttpRequest.BodyPublisher body){
+        return HttpRequest.newBuilder(URI.create(base + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, body)
+                .build();
+    }
+
+    private HttpRequest.BodyPublisher json(Integer id, SplittableRandom random, SyntheticCorpus.ZipfSampler authorSampler){
+        return HttpRequest.BodyPublishers.ofString(String.format(Locale.ROOT,
+                "{%s\"titleEnglish\":\"%s\",\"titleGerman\":\"%s\",\"issnNumber\":%d,\"isbnNumber\":%d,"
+                        + "\"yearPublication\":%d,\"editionNumber\":%d,\"authors\":[{\"id\":%d}]}",
+                id == null ? "" : "\"id\":" + id + ",", words.get(random.nextInt(words.size())),
+                words.get(random.nextInt(words.size())),
+                random.nextInt(100_000), random.nextInt(100_000), 1990 + random.nextInt(35), 1 + random.nextInt(10),
+                authorSampler.sample(random)));
+    }
+
+    private static int corpusSize(String base) throws IOException, InterruptedException {
+        String counts = HttpClient.newHttpClient()
+                .send(HttpRequest.newBuilder(URI.create(base + "/stats/years?size=500")).build(), HttpResponse.BodyHandlers.ofString())
+                .body();
+        int size = 0;
+        Matcher matcher = COUNT.matcher(counts);
+        while(matcher.find()){
+            size += Integer.parseInt(matcher.group(1));
+        }
+        if(size == 0){
+            throw new IllegalStateException("No articles at " + base + ", seed the database with CorpusSeeder first");
+        }
+        return size;
+    }
+
+    private static void report(Recorder[] recorders, Duration duration){
+        System.out.printf("%-38s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        Recorder all = new Recorder();
+        for(int i = 0; i < recorders.length; i++){
+            recorders[i].print(OPERATIONS[i].name, duration);
+            all.addAll(recorders[i]);
+        }
+        all.print("all", duration);
+    }
+
+    private static class Operation {
+        private final String name;
+        private final int weight;
+
+        Operation(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The latencies of one endpoint, every one of them, so the percentiles are exact. 5xx answers and requests
+     * that failed are counted as errors, 4xx answers (a full duplicate check queue) as answered.
+     */
+    private static class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        static Recorder[] forOperations(){
+            Recorder[] recorders = new Recorder[OPERATIONS.length];
+            for(int i = 0; i < recorders.length; i++){
+                recorders[i] = new Recorder();
+            }
+            return recorders;
+        }
+
+        void record(long nanos, int status){
+            if(count == latencies.length){
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if(status < 0 || status >= 500){
+                errors++;
+            }
+        }
+
+        void addAll(Recorder other){
+            if(count + other.count > latencies.length){
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + other.count));
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        void print(String name, Duration duration){
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf(Locale.ROOT, "%-38s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, count, errors,
+                    count / (double) duration.toSeconds(), millis(sorted, 0.5), millis(sorted, 0.99),
+                    millis(sorted, 0.999), millis(sorted, 1));
+        }
+
+        private static double millis(long[] sorted, double quantile){
+            if(sorted.length == 0){
+                return 0;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.newspaper.benchmark;
+
+import com.example.newspaper.dto.CursorPage;
+import com.example.newspaper.entity.Article;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization time and size of a page of articles in the response formats, optionally gzipped
+ * the way the servlet container compresses JSON. The bytes on the wire are printed once per trial,
+ * next to the time per page:
+ * <pre>
+ * ./mvnw -P benchmark test-compile exec:exec -Djmh.args="SerializationBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"none", "gzip"})
+    private String compression;
+
+    @Param({"50", "500"})
+    private int pageSize;
+
+    private ObjectMapper mapper;
+    private CursorPage<Article> page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Article> articles = SyntheticCorpus.generate(pageSize, 3, 0.05, 42).getArticles();
+        page = new CursorPage<>(articles, CursorPage.encodeCursor(pageSize));
+        switch(format){
+            case "smile":
+                SmileFactory factory = new SmileFactory();
+                factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+                mapper = Jackson2ObjectMapperBuilder.smile().factory(factory).build();
+                break;
+            case "cbor":
+                mapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            default:
+                mapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+        System.out.printf("%n%s, %s, %d articles: %d bytes on the wire%n", format, compression, pageSize, serialize().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        if(compression.equals("gzip")){
+            try(OutputStream gzip = new GZIPOutputStream(buffer)){
+                mapper.writeValue(gzip, page);
+            }
+        }
+        else {
+            mapper.writeValue(buffer, page);
+        }
+        return buffer.toByteArray();
+    }
+}
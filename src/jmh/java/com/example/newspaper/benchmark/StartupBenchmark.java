@@ -0,0 +1,124 @@
+package com.example.newspaper.benchmark;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to first request of the application: from starting the JVM until GET /articles answers 200.
+ * Not a JMH benchmark, every sample needs a JVM of its own, started the way it is deployed; the fork of JMH
+ * would add its own classpath, which does not match the class data sharing archive.
+ * Runs on the output of the cds profile, each configuration the same number of times in turns, after one
+ * discarded run each, on an in-memory database:
+ * <pre>
+ * ./mvnw -P cds,benchmark package -DskipTests
+ * java -cp target/test-classes com.example.newspaper.benchmark.StartupBenchmark target/cds 10
+ * </pre>
+ */
+public class StartupBenchmark {
+    private static final String MAIN_CLASS = "com.example.newspaper.NewspaperApplication";
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Path.of(args.length > 0 ? args[0] : "target/cds").toAbsolutePath();
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String classpath = applicationJar(directory) + System.getProperty("path.separator")
+                + Files.readString(directory.resolve("classpath")).trim();
+
+        Map<String, List<String>> configurations = new LinkedHashMap<>();
+        configurations.put("default", List.of());
+        configurations.put("prod", List.of("-Dspring.profiles.active=prod"));
+        configurations.put("prod+cds", List.of("-Dspring.profiles.active=prod", "-XX:SharedArchiveFile=newspaper.jsa"));
+
+        Map<String, List<Long>> samples = new LinkedHashMap<>();
+        for(int run = -1; run < runs; run++){
+            for(Map.Entry<String, List<String>> configuration : configurations.entrySet()){
+                long millis = timeToFirstRequest(directory, classpath, configuration.getValue());
+                if(run >= 0){
+                    samples.computeIfAbsent(configuration.getKey(), name -> new ArrayList<>()).add(millis);
+                }
+            }
+        }
+
+        System.out.printf("%-10s %8s %8s %8s %8s%n", "startup", "min", "median", "p90", "max");
+        samples.forEach((name, millis) -> {
+            Collections.sort(millis);
+            System.out.printf("%-10s %6d ms %5d ms %5d ms %5d ms%n", name, millis.get(0), percentile(millis, 0.5),
+                    percentile(millis, 0.9), millis.get(millis.size() - 1));
+        });
+    }
+
+    private static long timeToFirstRequest(Path directory, String classpath, List<String> options) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(options);
+        command.add("-Dserver.port=" + port);
+        command.add("-Dspring.datasource.url=jdbc:h2:mem:startup");
+        command.add("-cp");
+        command.add(classpath);
+        command.add(MAIN_CLASS);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/articles?size=1")).build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while(System.nanoTime() - start < TIMEOUT.toNanos()){
+                if(!process.isAlive()){
+                    throw new IllegalStateException("The application exited with " + process.exitValue() + ": " + command);
+                }
+                try {
+                    if(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200){
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("The application did not answer within " + TIMEOUT + ": " + command);
+        } finally {
+            process.destroy();
+            if(!process.waitFor(30, TimeUnit.SECONDS)){
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static String applicationJar(Path directory) throws IOException {
+        try(var files = Files.list(directory)){
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith("-cds.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No application jar in " + directory));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try(ServerSocket socket = new ServerSocket(0)){
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double quantile){
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1));
+    }
+}
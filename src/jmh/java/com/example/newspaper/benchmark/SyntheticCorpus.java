@@ -0,0 +1,194 @@
+package com.example.newspaper.benchmark;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Author;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic in-memory corpus of articles for benchmarks.
+ * Titles are built from random syllables, authors are drawn from a Zipf distribution
+ * (a few prolific authors, a long tail of occasional ones), and a share of the articles
+ * are near-copies of an earlier article with a typo, a case change or different punctuation.
+ */
+public class SyntheticCorpus {
+    private static final String[] SYLLABLES = {
+            "ber", "lin", "ta", "ge", "zei", "tung", "markt", "new", "world", "sta", "dt", "ko", "mu", "sik",
+            "rei", "se", "wet", "ter", "fo", "rum", "da", "ily", "re", "port", "kul", "tur", "po", "li", "tik", "vo"
+    };
+
+    private final List<Article> articles;
+    private final List<Author> authors;
+
+    private SyntheticCorpus(List<Article> articles, List<Author> authors) {
+        this.articles = articles;
+        this.authors = authors;
+    }
+
+    /**
+     * @param size              number of articles, with ids 1..size
+     * @param authorsPerArticle number of authors of every article
+     * @param duplicateRate     share of articles that are near-copies of an earlier one
+     * @param seed              seed of the generator, the same seed gives the same corpus
+     */
+    public static SyntheticCorpus generate(int size, int authorsPerArticle, double duplicateRate, long seed){
+        Generator generator = new Generator(Math.max(authorsPerArticle, size / 10), authorsPerArticle,
+                duplicateRate, size, seed);
+        List<Article> articles = new ArrayList<>(size);
+        for(int id = 1; id <= size; id++){
+            articles.add(generator.next(id));
+        }
+        return new SyntheticCorpus(articles, generator.getAuthors());
+    }
+
+    public List<Article> getArticles() {
+        return articles;
+    }
+
+    public List<Author> getAuthors() {
+        return authors;
+    }
+
+    private static String title(SplittableRandom random){
+        StringBuilder title = new StringBuilder(word(random));
+        int words = 1 + random.nextInt(3);
+        for(int i = 0; i < words; i++){
+            String word = word(random);
+            if(title.length() + word.length() + 1 > 20){
+                break;
+            }
+            title.append(' ').append(word);
+        }
+        return title.toString();
+    }
+
+    private static String word(SplittableRandom random){
+        int syllables = 2 + random.nextInt(2);
+        StringBuilder word = new StringBuilder();
+        for(int i = 0; i < syllables; i++){
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    private static Article nearCopy(Article original, SplittableRandom random){
+        Article copy = new Article();
+        copy.setTitleEnglish(perturb(original.getTitleEnglish(), random));
+        copy.setTitleGerman(original.getTitleGerman());
+        copy.setIssnNumber(original.getIssnNumber());
+        copy.setIsbnNumber(original.getIsbnNumber());
+        copy.setYearPublication(original.getYearPublication() + random.nextInt(2));
+        copy.setEditionNumber(original.getEditionNumber());
+        copy.setAuthors(new HashSet<>(original.getAuthors()));
+        return copy;
+    }
+
+    private static String perturb(String title, SplittableRandom random){
+        switch (random.nextInt(3)) {
+            case 0:
+                return title.toUpperCase(Locale.ROOT);
+            case 1:
+                // titles are limited to 20 characters
+                return title.replace(' ', ',') + (title.length() < 20 ? "." : "");
+            default:
+                int position = random.nextInt(title.length());
+                return title.substring(0, position) + (char) ('a' + random.nextInt(26)) + title.substring(position + 1);
+        }
+    }
+
+    /**
+     * Generates the articles one at a time, for corpora too large to be held in memory: near-copies are made
+     * of one of the last articles of a window instead of any earlier article. With a window as large as the corpus
+     * the articles are the ones {@link #generate(int, int, double, long)} returns.
+     */
+    public static class Generator {
+        private final SplittableRandom random;
+        private final List<Author> authors = new ArrayList<>();
+        private final ZipfSampler authorSampler;
+        private final int authorsPerArticle;
+        private final double duplicateRate;
+        private final Article[] window;
+        private int generated;
+
+        /**
+         * @param authorCount       number of authors, with ids 1..authorCount
+         * @param authorsPerArticle number of authors of every article
+         * @param duplicateRate     share of articles that are near-copies of an earlier one
+         * @param window            number of the last articles near-copies are made of
+         * @param seed              seed of the generator, the same seed gives the same articles
+         */
+        public Generator(int authorCount, int authorsPerArticle, double duplicateRate, int window, long seed) {
+            this.random = new SplittableRandom(seed);
+            for(int i = 1; i <= authorCount; i++){
+                Author author = new Author();
+                author.setId(i);
+                author.setFullName("Author " + i);
+                authors.add(author);
+            }
+            this.authorSampler = new ZipfSampler(authorCount, 1.1);
+            this.authorsPerArticle = authorsPerArticle;
+            this.duplicateRate = duplicateRate;
+            this.window = new Article[window];
+        }
+
+        public Article next(int id){
+            Article article;
+            int available = Math.min(generated, window.length);
+            if(available > 0 && random.nextDouble() < duplicateRate){
+                article = nearCopy(window[random.nextInt(available)], random);
+            }
+            else {
+                article = new Article();
+                article.setTitleEnglish(title(random));
+                article.setTitleGerman(title(random));
+                article.setIssnNumber(random.nextInt(100_000));
+                article.setIsbnNumber(random.nextInt(100_000));
+                article.setYearPublication(1990 + random.nextInt(35));
+                article.setEditionNumber(1 + random.nextInt(10));
+                Set<Author> articleAuthors = new HashSet<>();
+                while(articleAuthors.size() < authorsPerArticle){
+                    articleAuthors.add(authors.get(authorSampler.sample(random) - 1));
+                }
+                article.setAuthors(articleAuthors);
+            }
+            article.setId(id);
+            window[generated % window.length] = article;
+            generated++;
+            return article;
+        }
+
+        public List<Author> getAuthors() {
+            return authors;
+        }
+    }
+
+    /**
+     * Samples ranks 1..n with probability proportional to 1 / rank^exponent, using the precomputed CDF.
+     */
+    public static class ZipfSampler {
+        private final double[] cumulative;
+
+        public ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for(int rank = 1; rank <= n; rank++){
+                sum += 1.0 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for(int i = 0; i < n; i++){
+                cumulative[i] /= sum;
+            }
+        }
+
+        public int sample(SplittableRandom random){
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1) + 1;
+        }
+    }
+}
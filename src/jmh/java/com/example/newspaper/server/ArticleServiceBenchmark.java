@@ -0,0 +1,74 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.benchmark.InMemoryArticleRepository;
+import com.example.newspaper.benchmark.SyntheticCorpus;
+import com.example.newspaper.entity.Article;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot path of the duplicate detection over synthetic corpora.
+ * The repository is the in-memory one, so the numbers cover candidate collection and scoring
+ * without the database round trips. Run with {@code -prof gc} to see the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ArticleServiceBenchmark {
+    private static final int SAMPLES = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    private int corpusSize;
+
+    @Param({"1", "3", "10"})
+    private int authorsPerArticle;
+
+    private ArticleService articleService;
+    private Article[] originals;
+    private Article[] candidates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        List<Article> articles = SyntheticCorpus.generate(corpusSize, authorsPerArticle, 0.05, 42).getArticles();
+        articleService = new ArticleService(InMemoryArticleRepository.of(articles), new SimpleMeterRegistry());
+
+        SplittableRandom random = new SplittableRandom(7);
+        originals = new Article[SAMPLES];
+        candidates = new Article[SAMPLES];
+        for(int i = 0; i < SAMPLES; i++){
+            originals[i] = articles.get(random.nextInt(articles.size()));
+            candidates[i] = articles.get(random.nextInt(articles.size()));
+        }
+    }
+
+    private int nextSample(){
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public boolean checkDuplicate(){
+        int sample = nextSample();
+        return articleService.checkDuplicate(originals[sample], candidates[sample]);
+    }
+
+    @Benchmark
+    public boolean checkAuthor(){
+        int sample = nextSample();
+        return articleService.checkAuthor(originals[sample].getAuthors(), candidates[sample].getAuthors());
+    }
+
+    @Benchmark
+    public Collection<Article> listDuplicates(){
+        return articleService.listDuplicates(originals[nextSample()]);
+    }
+}
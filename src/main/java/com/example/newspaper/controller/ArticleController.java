@@ -1,52 +1,187 @@
 package com.example.newspaper.controller;
 
+import com.example.newspaper.dto.CursorPage;
 import com.example.newspaper.entity.Article;
 import com.example.newspaper.repository.ArticleRepository;
-import com.example.newspaper.server.ArticleService;
+import com.example.newspaper.repository.SiteRepository;
+import com.example.newspaper.dto.ImportResult;
+import com.example.newspaper.server.ArticleExportService;
+import com.example.newspaper.server.ArticleImportService;
+import com.example.newspaper.server.ArticleSearchIndex;
+import com.example.newspaper.server.AuthorResolver;
+import com.example.newspaper.server.DuplicateGraphService;
+import com.example.newspaper.server.EntityTags;
+import com.example.newspaper.server.FieldProjection;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.validation.ConstraintViolationException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Tag(name = "Article Controller", description = "CRUD operations with Article")
 @RestController
 @RequestMapping("/articles")
 public class ArticleController {
-    private final ArticleService articleService;
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private final DuplicateGraphService duplicateGraphService;
+    private final ArticleExportService articleExportService;
+    private final ArticleImportService articleImportService;
     private final ArticleRepository articleRepository;
+    private final SiteRepository siteRepository;
+    private final AuthorResolver authorResolver;
+    private final ArticleSearchIndex articleSearchIndex;
+    private final FieldProjection fieldProjection;
 
-    public ArticleController(ArticleRepository articleRepository, ArticleService articleService) {
+    public ArticleController(ArticleRepository articleRepository, DuplicateGraphService duplicateGraphService,
+                             ArticleExportService articleExportService, ArticleImportService articleImportService,
+                             AuthorResolver authorResolver, ArticleSearchIndex articleSearchIndex,
+                             FieldProjection fieldProjection, SiteRepository siteRepository) {
         this.articleRepository = articleRepository;
-        this.articleService = articleService;
+        this.siteRepository = siteRepository;
+        this.authorResolver = authorResolver;
+        this.articleSearchIndex = articleSearchIndex;
+        this.fieldProjection = fieldProjection;
+        this.duplicateGraphService = duplicateGraphService;
+        this.articleExportService = articleExportService;
+        this.articleImportService = articleImportService;
     }
 
-    @Operation(summary = "Get by all article", description = "Returns a list of all articles from the database")
+    @Operation(summary = "Get by all article", description = "Returns a page of articles ordered by id. " +
+            "The nextCursor of the response requests the following page, it is null on the last page. " +
+            "The ETag of the page is checked against If-None-Match")
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the page still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the cursor is not valid)", content = @Content)
+    @Transactional(readOnly = true)
     @GetMapping
-    Collection<Article> findAll(){
-        Collection<Article> articles =  articleRepository.findAll();
-        return articles;
+    public ResponseEntity<CursorPage<Article>> findAll(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        int afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = CursorPage.limitSize(size);
+        List<Integer> pageIds = articleRepository.findIdsByIdGreaterThan(afterId, PageRequest.of(0, pageSize + 1));
+        String entityTag = EntityTags.of(pageIds.isEmpty() ? List.of() : articleRepository.findVersionsByIdIn(pageIds));
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
+        List<Article> articles = articleRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return ResponseEntity.ok().eTag(entityTag).body(CursorPage.of(articles, pageSize, Article::getId));
+    }
+
+    @Operation(summary = "Export all articles", description = "Streams all articles ordered by id " +
+            "as newline-delimited JSON, one article per line")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    ResponseEntity<StreamingResponseBody> export(){
+        StreamingResponseBody body = articleExportService::exportNdjson;
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(summary = "Search by title", description = "Returns the articles whose English or German title " +
+            "contains every word of the query, best matches first. A word also matches the longer words it starts, " +
+            "\"zeit\" finds \"Zeitung\". Returns the status code 400(bad request) if the query is blank")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "400", description = "Bad request(the query is blank)", content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping("/search")
+    public ResponseEntity<List<Article>> search(@RequestParam String q, @RequestParam(required = false) Integer size){
+        if(q.isBlank()){
+            return ResponseEntity.badRequest().build();
+        }
+        List<Integer> ids = articleSearchIndex.search(q, CursorPage.limitSize(size));
+        Map<Integer, Article> articlesById = new HashMap<>();
+        if(!ids.isEmpty()){
+            articleRepository.findDistinctByIdInOrderByIdAsc(ids).forEach(article -> articlesById.put(article.getId(), article));
+        }
+        List<Article> articles = new ArrayList<>();
+        for(Integer articleId : ids){
+            if(articlesById.containsKey(articleId)){
+                articles.add(articlesById.get(articleId));
+            }
+        }
+        return ResponseEntity.ok(articles);
     }
 
     @Operation(summary = "Get by ID", description = "returns the article by the specified id " +
-                "or returns the status code 404(not found) if the article by the specified id is not found")
+                "or returns the status code 404(not found) if the article by the specified id is not found. " +
+                "Returns the status code 304(not modified) without the article if its ETag matches If-None-Match")
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the article still matches If-None-Match)", content = @Content)
     @ApiResponse(responseCode = "404", description = "Not found(According to the article ID not found)",
             content = @Content)
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
-    ResponseEntity<Article> findById(@PathVariable Integer id){
+    public ResponseEntity<Article> findById(@PathVariable Integer id,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        List<Object[]> versions = articleRepository.findVersionsByIdIn(List.of(id));
+        if(versions.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        String entityTag = EntityTags.of(versions);
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
         Optional<Article> articleOptional =  articleRepository.findById(id);
         if(articleOptional.isEmpty()){
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(articleOptional.get());
+        return ResponseEntity.ok().eTag(entityTag).body(articleOptional.get());
+    }
+
+    @Operation(summary = "Get fields of all articles", description = "Returns a page of articles ordered by id with only the fields " +
+            "listed in the fields parameter, e.g. fields=id,titleEnglish,yearPublication. Only the listed columns are read. " +
+            "Returns the status code 400(bad request) if a field is unknown or not selectable, the associations are not. " +
+            "Cursor and ETag work as without fields")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the page still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the fields or the cursor are not valid)", content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping(params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> findAllFields(@RequestParam String fields,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer size,
+                                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return fieldProjection.findPage(Article.class, fields, cursor, size, ifNoneMatch);
+    }
+
+    @Operation(summary = "Get fields by ID", description = "Returns the fields listed in the fields parameter of the article " +
+            "by the specified id, or returns the status code 404(not found) if the article by the specified id is not found " +
+            "and 400(bad request) if a field is unknown or not selectable")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the article still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the fields are not valid)", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Not found(According to the article ID not found)",
+            content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> findByIdFields(@PathVariable Integer id, @RequestParam String fields,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return fieldProjection.findById(Article.class, id, fields, ifNoneMatch);
     }
 
     @Operation(summary = "Delete by ID", description = "Deletes the article by the specified id " +
@@ -54,11 +189,14 @@ public class ArticleController {
     @ApiResponse(responseCode = "204", description = "No content(the article's deletion was successful)")
     @ApiResponse(responseCode = "404", description = "Not found(According to the article ID not found)",
             content = @Content)
+    @Transactional
     @DeleteMapping("/{id}")
-    ResponseEntity<?> deleteById(@PathVariable Integer id){
+    public ResponseEntity<?> deleteById(@PathVariable Integer id){
         if(!articleRepository.existsById(id)){
-            ResponseEntity.notFound();
+            return ResponseEntity.notFound().build();
         }
+        duplicateGraphService.remove(id);
+        articleSearchIndex.remove(id);
         articleRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
@@ -69,25 +207,51 @@ public class ArticleController {
     @ApiResponse(responseCode = "400", description = "Bad request")
     @ApiResponse(responseCode = "404", description = "Not found(According to the article ID not found)",
             content = @Content)
+    @ApiResponse(responseCode = "409", description = "Conflict(the version of the article is outdated " +
+            "or a new author was created by a concurrent write)", content = @Content)
+    @Transactional
     @PutMapping("/{id}")
     public ResponseEntity<?> update(@PathVariable Integer id, @RequestBody Article article){
-        if(id == null || !id.equals(article.getId()))
-            ResponseEntity.badRequest();
-        if(!articleRepository.existsById(id))
-           ResponseEntity.notFound();
-        articleRepository.save(article);
-        return ResponseEntity.ok().body(article);
+        if(id == null || !id.equals(article.getId())){
+            return ResponseEntity.badRequest().build();
+        }
+        if(!articleRepository.existsById(id)){
+            return ResponseEntity.notFound().build();
+        }
+        if(article.getVersion() == null){
+            article.setVersion(articleRepository.findVersionById(id).orElse(0L));
+        }
+        try {
+            authorResolver.resolve(List.of(article));
+            resolveSite(article);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Article updatedArticle = articleRepository.save(article);
+        duplicateGraphService.refresh(updatedArticle);
+        articleSearchIndex.index(updatedArticle);
+        return ResponseEntity.ok().body(updatedArticle);
     }
 
     @Operation(summary = "Create", description = "Create new article")
     @ApiResponse(responseCode = "201", description = "Created(creation was successful)")
     @ApiResponse(responseCode = "400", description = "Bad request")
+    @ApiResponse(responseCode = "409", description = "Conflict(a new author was created by a concurrent write)", content = @Content)
+    @Transactional
     @PostMapping
     public ResponseEntity<Article> create(@RequestBody Article article){
         if(article == null || article.getId() != null){
-            ResponseEntity.badRequest();
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            authorResolver.resolve(List.of(article));
+            resolveSite(article);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
         Article newArticle = articleRepository.save(article);
+        duplicateGraphService.refresh(newArticle);
+        articleSearchIndex.index(newArticle);
         URI uri = ServletUriComponentsBuilder
                 .fromCurrentRequest()
                 .path("/{id}")
@@ -96,12 +260,49 @@ public class ArticleController {
         return ResponseEntity.created(uri).body(newArticle);
     }
 
-    @Operation(summary = "Search for duplicates", description = "Returns a list of articles that duplicate this article")
+    @Operation(summary = "Import", description = "Creates articles in bulk from a JSON array or newline-delimited JSON. " +
+            "Authors and sites with an id must already exist. Authors without an id are matched by name " +
+            "and only created if the name is new, sites without an id are created. " +
+            "Returns the status code 400(bad request) and imports nothing if any article is invalid")
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content)
+    @ApiResponse(responseCode = "409", description = "Conflict(a new author was created by a concurrent write)", content = @Content)
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<ImportResult> importArticles(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(new ImportResult(articleImportService.importArticles(body)));
+        } catch (IllegalArgumentException | JsonProcessingException | ConstraintViolationException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Search for duplicates", description = "Returns a list of articles that duplicate this article " +
+            "or returns the status code 404(not found) if the article by the specified id is not found. " +
+            "The search runs while the request waits, POST /articles/{id}/duplicate-checks runs it in the background")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "404", description = "Not found(According to the article ID not found)",
+            content = @Content)
+    @Transactional(readOnly = true)
     @GetMapping("{id}/duplicates")
     public ResponseEntity<Collection<Article>> findDuplicateArticles(@PathVariable Integer id) {
-        Article article = articleRepository.findById(id).get();
-        Collection<Article> duplicateArticles = articleService.listDuplicates(article);
+        Optional<Article> articleOptional = articleRepository.findById(id);
+        if(articleOptional.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        Collection<Article> duplicateArticles = duplicateGraphService.findDuplicates(articleOptional.get());
         return ResponseEntity.ok(duplicateArticles);
     }
+
+    /**
+     * Replaces a site given by id with the stored one, so the fields the client sent along are not written.
+     *
+     * @throws IllegalArgumentException if the site id does not exist
+     */
+    private void resolveSite(Article article){
+        if(article.getSite() != null && article.getSite().getId() != null){
+            Integer siteId = article.getSite().getId();
+            article.setSite(siteRepository.findById(siteId)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown site id " + siteId)));
+        }
+    }
 }
@@ -1,17 +1,28 @@
 package com.example.newspaper.controller;
 
+import com.example.newspaper.dto.CursorPage;
+import com.example.newspaper.entity.Article;
 import com.example.newspaper.entity.Author;
+import com.example.newspaper.repository.ArticleRepository;
 import com.example.newspaper.repository.AuthorRepository;
+import com.example.newspaper.server.AuthorResolver;
+import com.example.newspaper.server.EntityTags;
+import com.example.newspaper.server.FieldProjection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
-import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Tag(name = "Author Controller", description = "CRUD operations with Author")
@@ -19,31 +30,136 @@ import java.util.Optional;
 @RequestMapping("/authors")
 public class AuthorController {
     private final AuthorRepository authorRepository;
+    private final ArticleRepository articleRepository;
+    private final FieldProjection fieldProjection;
+    private final AuthorResolver authorResolver;
 
-    public AuthorController(AuthorRepository authorRepository) {
+    public AuthorController(AuthorRepository authorRepository, ArticleRepository articleRepository,
+                            FieldProjection fieldProjection, AuthorResolver authorResolver) {
         this.authorRepository = authorRepository;
+        this.articleRepository = articleRepository;
+        this.fieldProjection = fieldProjection;
+        this.authorResolver = authorResolver;
     }
 
-    @Operation(summary = "Get by all authors", description = "Returns a list of all authors from the database")
+    @Operation(summary = "Get by all authors", description = "Returns a page of authors ordered by id. " +
+            "The nextCursor of the response requests the following page, it is null on the last page. " +
+            "The ETag of the page is checked against If-None-Match")
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the page still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the cursor is not valid)", content = @Content)
+    @Transactional(readOnly = true)
     @GetMapping
-    Collection<Author> findAll(){
-        Collection<Author> authors =  authorRepository.findAll();
-        return authors;
+    public ResponseEntity<CursorPage<Author>> findAll(@RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        int afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = CursorPage.limitSize(size);
+        List<Integer> pageIds = authorRepository.findIdsByIdGreaterThan(afterId, PageRequest.of(0, pageSize + 1));
+        String entityTag = EntityTags.of(pageIds.isEmpty() ? List.of() : authorRepository.findVersionsByIdIn(pageIds));
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
+        List<Author> authors = authorRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return ResponseEntity.ok().eTag(entityTag).body(CursorPage.of(authors, pageSize, Author::getId));
     }
 
     @Operation(summary = "Get by ID", description = "Returns the author by the specified id " +
-            "or returns the status code 404(not found) if the author by the specified id is not found")
+            "or returns the status code 404(not found) if the author by the specified id is not found. " +
+            "The articles of the author are not included, GET /authors/{id}/articles pages through them. " +
+            "Returns the status code 304(not modified) without the author if its ETag matches If-None-Match")
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the author still matches If-None-Match)", content = @Content)
     @ApiResponse(responseCode = "404", description = "Not found(According to the author ID not found)",
             content = @Content)
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
-    ResponseEntity<Author> findById(@PathVariable Integer id){
+    public ResponseEntity<Author> findById(@PathVariable Integer id,
+                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        List<Object[]> versions = authorRepository.findVersionsByIdIn(List.of(id));
+        if(versions.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        String entityTag = EntityTags.of(versions);
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
         Optional<Author> authorOptional =  authorRepository.findById(id);
         if(authorOptional.isEmpty()){
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(authorOptional.get());
+        return ResponseEntity.ok().eTag(entityTag).body(authorOptional.get());
+    }
+
+    @Operation(summary = "Returns the articles", description = "Returns a page of the articles of the specified author " +
+            "ordered by id, or returns the status code 404(not found) if the author by the specified id is not found. " +
+            "The nextCursor of the response requests the following page, it is null on the last page. " +
+            "The ETag of the page is checked against If-None-Match")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the page still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the cursor is not valid)", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Not found(According to the author ID not found)",
+            content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping("/{id}/articles")
+    public ResponseEntity<CursorPage<Article>> findArticles(@PathVariable Integer id,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if(!authorRepository.existsById(id)){
+            return ResponseEntity.notFound().build();
+        }
+        int afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = CursorPage.limitSize(size);
+        List<Integer> pageIds = articleRepository.findIdsByAuthorIdAndIdGreaterThan(id, afterId, PageRequest.of(0, pageSize + 1));
+        String entityTag = EntityTags.of(pageIds.isEmpty() ? List.of() : articleRepository.findVersionsByIdIn(pageIds));
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
+        List<Integer> itemIds = pageIds.subList(0, Math.min(pageIds.size(), pageSize));
+        List<Article> articles = itemIds.isEmpty() ? List.of() : articleRepository.findDistinctByIdInOrderByIdAsc(itemIds);
+        return ResponseEntity.ok().eTag(entityTag).body(CursorPage.ofIds(articles, pageIds, pageSize));
+    }
+
+    @Operation(summary = "Get fields of all authors", description = "Returns a page of authors ordered by id with only the fields " +
+            "listed in the fields parameter, e.g. fields=id,fullName. Only the listed columns are read. " +
+            "Returns the status code 400(bad request) if a field is unknown or not selectable, the associations are not. " +
+            "Cursor and ETag work as without fields")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the page still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the fields or the cursor are not valid)", content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping(params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> findAllFields(@RequestParam String fields,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer size,
+                                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return fieldProjection.findPage(Author.class, fields, cursor, size, ifNoneMatch);
+    }
+
+    @Operation(summary = "Get fields by ID", description = "Returns the fields listed in the fields parameter of the author " +
+            "by the specified id, or returns the status code 404(not found) if the author by the specified id is not found " +
+            "and 400(bad request) if a field is unknown or not selectable")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the author still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the fields are not valid)", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Not found(According to the author ID not found)",
+            content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> findByIdFields(@PathVariable Integer id, @RequestParam String fields,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return fieldProjection.findById(Author.class, id, fields, ifNoneMatch);
     }
 
     @Operation(summary = "Delete by ID", description = "Deletes the author by the specified id " +
@@ -54,7 +170,7 @@ public class AuthorController {
     @DeleteMapping("/{id}")
     ResponseEntity<?> deleteById(@PathVariable Integer id){
         if(!authorRepository.existsById(id)){
-            ResponseEntity.notFound();
+            return ResponseEntity.notFound().build();
         }
         authorRepository.deleteById(id);
         return ResponseEntity.noContent().build();
@@ -66,25 +182,40 @@ public class AuthorController {
     @ApiResponse(responseCode = "400", description = "Bad request")
     @ApiResponse(responseCode = "404", description = "Not found(According to the author ID not found)",
             content = @Content)
+    @ApiResponse(responseCode = "409", description = "Conflict(the version of the author is outdated " +
+            "or another author has the same name)", content = @Content)
     @PutMapping("/{id}")
     public ResponseEntity<?> update(@PathVariable Integer id, @RequestBody Author author){
-        if(id == null || !id.equals(author.getId()))
-            ResponseEntity.badRequest();
-        if(!authorRepository.existsById(id))
-           ResponseEntity.notFound();
-        authorRepository.save(author);
+        if(id == null || !id.equals(author.getId())){
+            return ResponseEntity.badRequest().build();
+        }
+        if(!authorRepository.existsById(id)){
+            return ResponseEntity.notFound().build();
+        }
+        // the unique index on the name catches a concurrent write as well, see AuthorResolver
+        if(author.getNormalizedName() != null && authorRepository.existsByNormalizedNameAndIdNot(author.getNormalizedName(), id)){
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if(author.getVersion() == null){
+            author.setVersion(authorRepository.findVersionById(id).orElse(0L));
+        }
+        author.setVersion(authorResolver.save(author).getVersion());
         return ResponseEntity.ok().body(author);
     }
 
     @Operation(summary = "Create", description = "Create new author")
     @ApiResponse(responseCode = "201", description = "Created(creation was successful)")
     @ApiResponse(responseCode = "400", description = "Bad request")
+    @ApiResponse(responseCode = "409", description = "Conflict(another author has the same name)", content = @Content)
     @PostMapping
     public ResponseEntity<Author> create(@RequestBody Author author){
         if(author == null || author.getId() != null){
-            ResponseEntity.badRequest();
+            return ResponseEntity.badRequest().build();
+        }
+        if(author.getNormalizedName() != null && authorRepository.existsByNormalizedName(author.getNormalizedName())){
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
-        Author newAuthor = authorRepository.save(author);
+        Author newAuthor = authorResolver.save(author);
         URI uri = ServletUriComponentsBuilder
                 .fromCurrentRequest()
                 .path("/{id}")
@@ -0,0 +1,62 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.dto.CacheStatistics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Tag(name = "Cache Controller", description = "Statistics and eviction of the second-level cache")
+@RestController
+@RequestMapping("/admin/cache")
+public class CacheController {
+    private final SessionFactory sessionFactory;
+
+    public CacheController(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @Operation(summary = "Get statistics", description = "Returns the hit, miss and put counts of the second-level cache " +
+            "and of the query cache since the start of the application, in total and per region")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @GetMapping
+    ResponseEntity<CacheStatistics> statistics(){
+        Statistics statistics = sessionFactory.getStatistics();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+
+        List<CacheStatistics.Region> regions = new ArrayList<>();
+        for(String regionName : regionNames){
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if(region != null){
+                regions.add(new CacheStatistics.Region(regionName, region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), region.getElementCountInMemory()));
+            }
+        }
+        return ResponseEntity.ok(new CacheStatistics(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                regions));
+    }
+
+    @Operation(summary = "Evict all", description = "Empties the second-level cache and the query cache, " +
+            "for example after the tables were changed without going through the application")
+    @ApiResponse(responseCode = "204", description = "No content(the cache was emptied)")
+    @DeleteMapping
+    ResponseEntity<?> evictAll(){
+        sessionFactory.getCache().evictAllRegions();
+        return ResponseEntity.noContent().build();
+    }
+}
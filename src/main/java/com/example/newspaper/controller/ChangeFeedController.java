@@ -0,0 +1,43 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.server.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Tag(name = "Change Feed Controller", description = "Server-sent events of the changes of articles, authors and sites")
+@RestController
+@RequestMapping("/changes")
+public class ChangeFeedController {
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @Operation(summary = "Follow changes", description = "Streams the creations, updates and deletions of articles, authors " +
+            "and sites as server-sent events named change, with the entity type, id, operation and version. " +
+            "The id of an event is its position in the feed: a client resumes after the last event it processed " +
+            "with the Last-Event-ID header (sent by event sources when they reconnect) or the after parameter, " +
+            "without either it is sent all the events kept. Returns the status code 410(gone) if events after " +
+            "the position were deleted already, the client has to read everything again and follow from the start")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "410", description = "Gone(events after the position were deleted)", content = @Content)
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> follow(@RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId,
+                                             @RequestParam(required = false) Long after){
+        Long position = lastEventId != null ? lastEventId : after;
+        if(position != null && changeFeedService.isExpired(position)){
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        return ResponseEntity.ok(changeFeedService.subscribe(position != null ? position : 0));
+    }
+}
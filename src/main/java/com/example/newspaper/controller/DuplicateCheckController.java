@@ -0,0 +1,73 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.repository.ArticleRepository;
+import com.example.newspaper.server.DuplicateCheckJob;
+import com.example.newspaper.server.DuplicateCheckService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.Optional;
+
+@Tag(name = "Duplicate Check Controller", description = "Background search for the duplicates of one article")
+@RestController
+@RequestMapping("/articles")
+public class DuplicateCheckController {
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private final DuplicateCheckService duplicateCheckService;
+    private final ArticleRepository articleRepository;
+
+    public DuplicateCheckController(DuplicateCheckService duplicateCheckService, ArticleRepository articleRepository) {
+        this.duplicateCheckService = duplicateCheckService;
+        this.articleRepository = articleRepository;
+    }
+
+    @Operation(summary = "Start duplicate check", description = "Starts a job that searches the duplicates of the article " +
+            "by the specified id, or returns the status code 404(not found) if the article is not found " +
+            "and 429(too many requests) if too many jobs are queued already")
+    @ApiResponse(responseCode = "202", description = "Accepted(the job was queued)")
+    @ApiResponse(responseCode = "404", description = "Not found(According to the article ID not found)",
+            content = @Content)
+    @ApiResponse(responseCode = "429", description = "Too many requests(the queue is full, retry later)",
+            content = @Content)
+    @PostMapping("/{id}/duplicate-checks")
+    public ResponseEntity<DuplicateCheckJob> start(@PathVariable Integer id){
+        if(!articleRepository.existsById(id)){
+            return ResponseEntity.notFound().build();
+        }
+        Optional<DuplicateCheckJob> jobOptional = duplicateCheckService.submit(id);
+        if(jobOptional.isEmpty()){
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        }
+        URI uri = ServletUriComponentsBuilder
+                .fromCurrentContextPath()
+                .path("/articles/duplicate-checks/{jobId}")
+                .buildAndExpand(jobOptional.get().getId())
+                .toUri();
+        return ResponseEntity.accepted().location(uri).body(jobOptional.get());
+    }
+
+    @Operation(summary = "Get duplicate check", description = "Returns the status of the duplicate check and, once completed, " +
+            "the ids of the duplicates, or returns the status code 404(not found) if the job is not found " +
+            "or its result has expired")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "404", description = "Not found(According to the job ID not found)",
+            content = @Content)
+    @GetMapping("/duplicate-checks/{jobId}")
+    ResponseEntity<DuplicateCheckJob> findById(@PathVariable String jobId){
+        Optional<DuplicateCheckJob> jobOptional = duplicateCheckService.findJob(jobId);
+        if(jobOptional.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(jobOptional.get());
+    }
+}
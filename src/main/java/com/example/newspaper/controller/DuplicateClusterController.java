@@ -0,0 +1,58 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.server.DuplicateClusteringJob;
+import com.example.newspaper.server.DuplicateClusteringService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.Optional;
+
+@Tag(name = "Duplicate Cluster Controller", description = "Corpus-wide search for duplicate articles")
+@RestController
+@RequestMapping("/articles/duplicate-clusters")
+public class DuplicateClusterController {
+    private final DuplicateClusteringService duplicateClusteringService;
+
+    public DuplicateClusterController(DuplicateClusteringService duplicateClusteringService) {
+        this.duplicateClusteringService = duplicateClusteringService;
+    }
+
+    @Operation(summary = "Start clustering", description = "Starts a job that groups all articles into duplicate clusters " +
+            "or returns the status code 409(conflict) if a job is already running")
+    @ApiResponse(responseCode = "202", description = "Accepted(the job was started)")
+    @ApiResponse(responseCode = "409", description = "Conflict(another job is still running)", content = @Content)
+    @PostMapping
+    public ResponseEntity<DuplicateClusteringJob> start(){
+        Optional<DuplicateClusteringJob> jobOptional = duplicateClusteringService.start();
+        if(jobOptional.isEmpty()){
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        URI uri = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(jobOptional.get().getId())
+                .toUri();
+        return ResponseEntity.accepted().location(uri).body(jobOptional.get());
+    }
+
+    @Operation(summary = "Get job status", description = "Returns the progress of the clustering job and, once completed, " +
+            "the clusters as lists of article ids, or returns the status code 404(not found) if the job is not found")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "404", description = "Not found(According to the job ID not found)",
+            content = @Content)
+    @GetMapping("/{jobId}")
+    ResponseEntity<DuplicateClusteringJob> findById(@PathVariable String jobId){
+        Optional<DuplicateClusteringJob> jobOptional = duplicateClusteringService.findJob(jobId);
+        if(jobOptional.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(jobOptional.get());
+    }
+}
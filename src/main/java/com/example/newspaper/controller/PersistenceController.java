@@ -0,0 +1,69 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.dto.PersistenceStatistics;
+import com.example.newspaper.dto.SlowQuery;
+import com.example.newspaper.server.PersistenceDiagnostics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+@Tag(name = "Persistence Controller", description = "Hibernate statistics per endpoint and the slow query log")
+@RestController
+@RequestMapping("/admin/persistence")
+public class PersistenceController {
+    private final SessionFactory sessionFactory;
+    private final PersistenceDiagnostics persistenceDiagnostics;
+
+    public PersistenceController(EntityManagerFactory entityManagerFactory, PersistenceDiagnostics persistenceDiagnostics) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.persistenceDiagnostics = persistenceDiagnostics;
+    }
+
+    @Operation(summary = "Get statistics", description = "Returns the statements, queries, entity and collection loads, " +
+            "cache hits and flushes since the start of the application (or the last reset), in total and per endpoint. " +
+            "Fetches are loads of lazy associations, an endpoint with many of them per request has an N+1 problem")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @GetMapping
+    ResponseEntity<PersistenceStatistics> statistics(){
+        Statistics statistics = sessionFactory.getStatistics();
+        return ResponseEntity.ok(new PersistenceStatistics(
+                statistics.getSessionOpenCount(),
+                statistics.getPrepareStatementCount(),
+                statistics.getQueryExecutionCount(),
+                statistics.getQueryExecutionMaxTime(),
+                statistics.getQueryExecutionMaxTimeQueryString(),
+                statistics.getEntityLoadCount(),
+                statistics.getEntityFetchCount(),
+                statistics.getCollectionLoadCount(),
+                statistics.getCollectionFetchCount(),
+                statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount() + statistics.getQueryCacheMissCount(),
+                statistics.getFlushCount(),
+                statistics.getTransactionCount(),
+                persistenceDiagnostics.getEndpoints()));
+    }
+
+    @Operation(summary = "Get slow queries", description = "Returns the latest queries that took longer than " +
+            "newspaper.persistence.slow-query-threshold, the latest first, with the endpoint they ran for")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @GetMapping("/slow-queries")
+    ResponseEntity<List<SlowQuery>> slowQueries(){
+        return ResponseEntity.ok(persistenceDiagnostics.getSlowQueries());
+    }
+
+    @Operation(summary = "Reset", description = "Resets the statistics and empties the slow query log")
+    @ApiResponse(responseCode = "204", description = "No content(the statistics were reset)")
+    @DeleteMapping
+    ResponseEntity<?> reset(){
+        sessionFactory.getStatistics().clear();
+        persistenceDiagnostics.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.server.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Lets the endpoints that run as a read-only transaction read from the replica, unless the client wrote recently.
+ * Every write request sets a cookie with its time; for as long as the cookie is younger than the lag window
+ * the client reads from the primary, so it sees its own writes even while the replica lags behind.
+ * The window starts with the write request, it has to cover the replication lag plus the time the writes take.
+ * The window is fixed, the actual lag of the replica is not measured: a replica that falls further behind, or a client
+ * that does not keep cookies, reads older data than it wrote. Replica reads never fill the shared cache, so the
+ * other clients are not served that data, see ReplicaReadsJpaDialect.
+ */
+@Component
+@ConditionalOnProperty("newspaper.datasource.replica.jdbc-url")
+public class ReplicaReadsInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+    static final String LAST_WRITE_COOKIE = "newspaper-last-write";
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private final long lagWindowMillis;
+
+    public ReplicaReadsInterceptor(@Value("${newspaper.datasource.replica-lag-window:5s}") Duration lagWindow) {
+        this.lagWindowMillis = lagWindow.toMillis();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if(!SAFE_METHODS.contains(request.getMethod())){
+            Cookie cookie = new Cookie(LAST_WRITE_COOKIE, String.valueOf(System.currentTimeMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (lagWindowMillis + 999) / 1000));
+            response.addCookie(cookie);
+            return true;
+        }
+        if(handler instanceof HandlerMethod && isReadOnly((HandlerMethod) handler) && !wroteRecently(request)){
+            ReplicaRoutingDataSource.allowReplicaReads();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRoutingDataSource.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRoutingDataSource.clear();
+    }
+
+    private static boolean isReadOnly(HandlerMethod handler){
+        Transactional transactional = handler.getMethodAnnotation(Transactional.class);
+        return transactional != null && transactional.readOnly();
+    }
+
+    private boolean wroteRecently(HttpServletRequest request){
+        Cookie cookie = WebUtils.getCookie(request, LAST_WRITE_COOKIE);
+        if(cookie == null){
+            return false;
+        }
+        try {
+            return System.currentTimeMillis() - Long.parseLong(cookie.getValue()) < lagWindowMillis;
+        } catch (NumberFormatException e) {
+            // a cookie we cannot read is no proof that the replica caught up
+            return true;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.server.PersistenceDiagnostics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Counts the persistence work of every request for {@link PersistenceDiagnostics}.
+ * Requests are grouped by method and path pattern, so "/articles/10" and "/articles/20"
+ * count for "GET /articles/{id}".
+ */
+@Component
+public class RequestStatisticsFilter extends OncePerRequestFilter {
+    private final PersistenceDiagnostics persistenceDiagnostics;
+
+    public RequestStatisticsFilter(PersistenceDiagnostics persistenceDiagnostics) {
+        this.persistenceDiagnostics = persistenceDiagnostics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PersistenceDiagnostics.RequestStatistics statistics = persistenceDiagnostics.begin(() -> endpoint(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            persistenceDiagnostics.end(statistics);
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request){
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED");
+    }
+}
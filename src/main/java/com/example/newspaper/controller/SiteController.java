@@ -1,19 +1,32 @@
 package com.example.newspaper.controller;
 
+import com.example.newspaper.dto.ArticleSetDelta;
+import com.example.newspaper.dto.CursorPage;
 import com.example.newspaper.entity.Article;
 import com.example.newspaper.entity.Site;
+import com.example.newspaper.repository.ArticleRepository;
 import com.example.newspaper.repository.SiteRepository;
+import com.example.newspaper.server.EntityTags;
+import com.example.newspaper.server.FieldProjection;
+import com.example.newspaper.server.SiteArticlesService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -21,32 +34,105 @@ import java.util.Set;
 @RestController
 @RequestMapping("/sites")
 public class SiteController {
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final Set<String> SORTABLE_ARTICLE_PROPERTIES = Set.of("id", "titleEnglish", "titleGerman",
+            "issnNumber", "isbnNumber", "yearPublication", "editionNumber");
     private final SiteRepository siteRepository;
+    private final ArticleRepository articleRepository;
+    private final SiteArticlesService siteArticlesService;
+    private final FieldProjection fieldProjection;
 
-    public SiteController(SiteRepository siteRepository) {
+    public SiteController(SiteRepository siteRepository, ArticleRepository articleRepository,
+                          SiteArticlesService siteArticlesService, FieldProjection fieldProjection) {
         this.siteRepository = siteRepository;
+        this.articleRepository = articleRepository;
+        this.siteArticlesService = siteArticlesService;
+        this.fieldProjection = fieldProjection;
     }
 
-    @Operation(summary = "Get by all site", description = "Returns a list of all sites from the database")
+    @Operation(summary = "Get by all site", description = "Returns a page of sites ordered by id. " +
+            "The nextCursor of the response requests the following page, it is null on the last page. " +
+            "The ETag of the page is checked against If-None-Match")
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the page still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the cursor is not valid)", content = @Content)
+    @Transactional(readOnly = true)
     @GetMapping
-    Collection<Site> findAll(){
-        Collection<Site> sites =  siteRepository.findAll();
-        return sites;
+    public ResponseEntity<CursorPage<Site>> findAll(@RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer size,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        int afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = CursorPage.limitSize(size);
+        List<Integer> pageIds = siteRepository.findIdsByIdGreaterThan(afterId, PageRequest.of(0, pageSize + 1));
+        String entityTag = EntityTags.of(pageIds.isEmpty() ? List.of() : siteRepository.findVersionsByIdIn(pageIds));
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
+        List<Site> sites = siteRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return ResponseEntity.ok().eTag(entityTag).body(CursorPage.of(sites, pageSize, Site::getId));
     }
 
     @Operation(summary = "Get by ID", description = "Returns the site by the specified id " +
-            "or returns the status code 404(not found) if the site by the specified id is not found")
+            "or returns the status code 404(not found) if the site by the specified id is not found. " +
+            "The articles of the site are not included, GET /sites/{id}/articles pages through them. " +
+            "Returns the status code 304(not modified) without the site if its ETag matches If-None-Match")
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the site still matches If-None-Match)", content = @Content)
     @ApiResponse(responseCode = "404", description = "Not found(According to the site ID not found)",
             content = @Content)
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
-    ResponseEntity<Site> findById(@PathVariable Integer id){
+    public ResponseEntity<Site> findById(@PathVariable Integer id,
+                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        List<Object[]> versions = siteRepository.findVersionsByIdIn(List.of(id));
+        if(versions.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        String entityTag = EntityTags.of(versions);
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
         Optional<Site> siteOptional =  siteRepository.findById(id);
         if(siteOptional.isEmpty()){
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(siteOptional.get());
+        return ResponseEntity.ok().eTag(entityTag).body(siteOptional.get());
+    }
+
+    @Operation(summary = "Get fields of all sites", description = "Returns a page of sites ordered by id with only the fields " +
+            "listed in the fields parameter, e.g. fields=id,weblink. Only the listed columns are read. " +
+            "Returns the status code 400(bad request) if a field is unknown or not selectable, the associations are not. " +
+            "Cursor and ETag work as without fields")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the page still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the fields or the cursor are not valid)", content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping(params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> findAllFields(@RequestParam String fields,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer size,
+                                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return fieldProjection.findPage(Site.class, fields, cursor, size, ifNoneMatch);
+    }
+
+    @Operation(summary = "Get fields by ID", description = "Returns the fields listed in the fields parameter of the site " +
+            "by the specified id, or returns the status code 404(not found) if the site by the specified id is not found " +
+            "and 400(bad request) if a field is unknown or not selectable")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the site still matches If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the fields are not valid)", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Not found(According to the site ID not found)",
+            content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> findByIdFields(@PathVariable Integer id, @RequestParam String fields,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return fieldProjection.findById(Site.class, id, fields, ifNoneMatch);
     }
 
     @Operation(summary = "Delete by ID", description = "Deletes the site by the specified id " +
@@ -57,7 +143,7 @@ public class SiteController {
     @DeleteMapping("/{id}")
     ResponseEntity<?> deleteById(@PathVariable Integer id){
         if(!siteRepository.existsById(id)){
-            ResponseEntity.notFound();
+            return ResponseEntity.notFound().build();
         }
         siteRepository.deleteById(id);
         return ResponseEntity.noContent().build();
@@ -69,13 +155,19 @@ public class SiteController {
     @ApiResponse(responseCode = "400", description = "Bad request")
     @ApiResponse(responseCode = "404", description = "Not found(According to the site ID not found)",
             content = @Content)
+    @ApiResponse(responseCode = "409", description = "Conflict(the version of the site is outdated)", content = @Content)
     @PutMapping("/{id}")
     public ResponseEntity<?> update(@PathVariable Integer id, @RequestBody Site site){
-        if(id == null || !id.equals(site.getId()))
-            ResponseEntity.badRequest();
-        if(!siteRepository.existsById(id))
-           ResponseEntity.notFound();
-        siteRepository.save(site);
+        if(id == null || !id.equals(site.getId())){
+            return ResponseEntity.badRequest().build();
+        }
+        if(!siteRepository.existsById(id)){
+            return ResponseEntity.notFound().build();
+        }
+        if(site.getVersion() == null){
+            site.setVersion(siteRepository.findVersionById(id).orElse(0L));
+        }
+        site.setVersion(siteRepository.save(site).getVersion());
         return ResponseEntity.ok().body(site);
     }
 
@@ -85,7 +177,7 @@ public class SiteController {
     @PostMapping
     public ResponseEntity<Site> create(@RequestBody Site site){
         if(site == null || site.getId() != null){
-            ResponseEntity.badRequest();
+            return ResponseEntity.badRequest().build();
         }
         Site newSite = siteRepository.save(site);
         URI uri = ServletUriComponentsBuilder
@@ -96,37 +188,122 @@ public class SiteController {
         return ResponseEntity.created(uri).body(newSite);
     }
 
-    @Operation(summary = "Returns all articles", description = "Returns all articles of the specified site " +
-            "or returns the status code 404(not found) if the site by the specified id is not found")
+    @Operation(summary = "Returns all articles", description = "Returns one page of the articles of the specified site " +
+            "or returns the status code 404(not found) if the site by the specified id is not found. " +
+            "The page is sorted by the sort parameter (a property, optionally followed by ,asc or ,desc) and then by id, " +
+            "the X-Total-Count header holds the number of articles of the site. " +
+            "Returns the status code 304(not modified) without the articles if the ETag matches If-None-Match")
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "304", description = "Not modified(the articles still match If-None-Match)", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Bad request(the page or the sort is not valid)", content = @Content)
     @ApiResponse(responseCode = "404", description = "Not found(According to the site ID not found)",
             content = @Content)
+    @Transactional(readOnly = true)
     @GetMapping("/{id}/articles")
-    ResponseEntity<Collection<Article>> allArticlesSite(@PathVariable Integer id){
-        Optional<Site> siteOptional =  siteRepository.findById(id);
-        if(siteOptional.isEmpty()){
+    public ResponseEntity<List<Article>> allArticlesSite(@PathVariable Integer id,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(required = false) Integer size,
+                                                  @RequestParam(defaultValue = "id") String sort,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if(!siteRepository.existsById(id)){
             return ResponseEntity.notFound().build();
         }
-        Collection<Article> articlesSite = siteOptional.get().getArticles();
-        return ResponseEntity.ok(articlesSite);
+        Optional<Sort> order = parseArticleSort(sort);
+        if(page < 0 || order.isEmpty()){
+            return ResponseEntity.badRequest().build();
+        }
+
+        long total = articleRepository.countBySiteId(id);
+        List<Integer> pageIds = articleRepository.findIdsBySiteId(id,
+                PageRequest.of(page, CursorPage.limitSize(size), order.get()));
+        List<Object[]> versions = new ArrayList<>();
+        versions.add(new Object[]{total});
+        if(!pageIds.isEmpty()){
+            versions.addAll(articleRepository.findVersionsByIdIn(pageIds));
+        }
+        String entityTag = EntityTags.of(versions);
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
+
+        Map<Integer, Article> articlesById = new HashMap<>();
+        if(!pageIds.isEmpty()){
+            articleRepository.findDistinctByIdInOrderByIdAsc(pageIds).forEach(article -> articlesById.put(article.getId(), article));
+        }
+        List<Article> articles = new ArrayList<>();
+        for(Integer articleId : pageIds){
+            if(articlesById.containsKey(articleId)){
+                articles.add(articlesById.get(articleId));
+            }
+        }
+        return ResponseEntity.ok()
+                .eTag(entityTag)
+                .header(TOTAL_COUNT_HEADER, String.valueOf(total))
+                .body(articles);
     }
 
-    @Operation(summary = "Updating the list of articles", description = "Updates the list of site articles by the specified id " +
-            "or returns the status code 404(not found) if the site by the specified id is not found")
+    /**
+     * Parses "property" or "property,asc|desc" into a sort with the id as tie-breaker,
+     * so the pages are stable. Returns empty for properties that are not sortable.
+     */
+    private Optional<Sort> parseArticleSort(String sort){
+        String[] parts = sort.split(",");
+        if(parts.length > 2 || !SORTABLE_ARTICLE_PROPERTIES.contains(parts[0])){
+            return Optional.empty();
+        }
+        Sort.Direction direction = Sort.Direction.ASC;
+        if(parts.length == 2){
+            Optional<Sort.Direction> parsed = Sort.Direction.fromOptionalString(parts[1]);
+            if(parsed.isEmpty()){
+                return Optional.empty();
+            }
+            direction = parsed.get();
+        }
+        Sort order = Sort.by(direction, parts[0]);
+        return Optional.of(parts[0].equals("id") ? order : order.and(Sort.by("id")));
+    }
+
+    @Operation(summary = "Updating the list of articles", description = "Makes the given articles the articles of the site " +
+            "by the specified id or returns the status code 404(not found) if the site by the specified id is not found. " +
+            "Articles with an id are moved to the site, the articles of the site that are not given are removed from it; " +
+            "only these articles are written, their content is not changed. Articles without an id are created in the site. " +
+            "Returns the ids of the added and removed articles. Kept for existing clients: it reads the ids of all " +
+            "articles of the site, so it gets slower as the site grows; PATCH /sites/{id}/articles only touches " +
+            "the given articles", deprecated = true)
     @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "400", description = "Bad request(an article ID not found)", content = @Content)
     @ApiResponse(responseCode = "404", description = "Not found(According to the site ID not found)",
             content = @Content)
-    @Transactional
     @PutMapping("/{id}/update-articles")
-    public ResponseEntity<?> updateListArticle(@PathVariable Integer id, @RequestBody Set<Article> articles){
-        Optional<Site> site = siteRepository.findById(id);
-        if(site.isEmpty()){
+    public ResponseEntity<ArticleSetDelta> updateListArticle(@PathVariable Integer id, @RequestBody Set<Article> articles){
+        if(!siteRepository.existsById(id)){
             return ResponseEntity.notFound().build();
         }
+        try {
+            return ResponseEntity.ok().body(siteArticlesService.replace(id, articles));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
-        site.get().setArticles(articles);
-        siteRepository.save(site.get());
-
-        return ResponseEntity.ok().body(site);
+    @Operation(summary = "Add and remove articles", description = "Moves the articles of the add list to the site " +
+            "by the specified id and removes the articles of the remove list from it, the other articles of the site " +
+            "are not touched. Returns the ids of the articles that were actually added and removed, " +
+            "or returns the status code 404(not found) if the site by the specified id is not found")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "400", description = "Bad request(an article ID not found or both added and removed)",
+            content = @Content)
+    @ApiResponse(responseCode = "404", description = "Not found(According to the site ID not found)",
+            content = @Content)
+    @PatchMapping("/{id}/articles")
+    public ResponseEntity<ArticleSetDelta> updateArticles(@PathVariable Integer id, @RequestBody ArticleSetDelta delta){
+        if(!siteRepository.existsById(id)){
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok().body(siteArticlesService.apply(id, delta.getAdd(), delta.getRemove()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
@@ -0,0 +1,70 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.dto.CursorPage;
+import com.example.newspaper.entity.ArticleCount;
+import com.example.newspaper.server.ArticleCountService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Tag(name = "Stats Controller", description = "Article counts per year, edition, site and author")
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+    private static final Map<String, ArticleCount.Dimension> DIMENSIONS = Map.of(
+            "years", ArticleCount.Dimension.YEAR,
+            "editions", ArticleCount.Dimension.EDITION,
+            "sites", ArticleCount.Dimension.SITE,
+            "authors", ArticleCount.Dimension.AUTHOR);
+
+    private final ArticleCountService articleCountService;
+
+    public StatsController(ArticleCountService articleCountService) {
+        this.articleCountService = articleCountService;
+    }
+
+    @Operation(summary = "Get article counts", description = "Returns a page of the numbers of articles per year of publication(years), " +
+            "edition number(editions), site id(sites) or author id(authors), ordered by the bucket. Buckets without articles " +
+            "are left out. The nextCursor of the response requests the following page, it is null on the last page. " +
+            "The counts are kept with the articles, reading them does not count the articles " +
+            "or returns the status code 404(not found) for another dimension")
+    @ApiResponse(responseCode = "200", description = "All ok")
+    @ApiResponse(responseCode = "400", description = "Bad request(the cursor is not valid)", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Not found(no such dimension)", content = @Content)
+    @Transactional(readOnly = true)
+    @GetMapping("/{dimension}")
+    public ResponseEntity<CursorPage<ArticleCount>> findCounts(@PathVariable String dimension,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size){
+        ArticleCount.Dimension found = DIMENSIONS.get(dimension);
+        if(found == null){
+            return ResponseEntity.notFound().build();
+        }
+        int afterBucket;
+        try {
+            // years and editions are not ids, the first page also starts below 0
+            afterBucket = cursor == null || cursor.isEmpty() ? Integer.MIN_VALUE : CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = CursorPage.limitSize(size);
+        List<ArticleCount> counts = articleCountService.find(found, afterBucket, pageSize + 1);
+        return ResponseEntity.ok(CursorPage.of(counts, pageSize, ArticleCount::getBucket));
+    }
+
+    @Operation(summary = "Rebuild the counts", description = "Counts all the articles again, " +
+            "for example after articles were inserted without going through the application")
+    @ApiResponse(responseCode = "204", description = "No content(the counts were rebuilt)")
+    @PostMapping("/rebuild")
+    ResponseEntity<?> rebuild(){
+        articleCountService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.server.AuthorNameConflictException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * A write that carries the version it was based on fails when the entity has been changed since;
+ * it is answered with the status code 409(conflict) so the client can read the entity again.
+ */
+@RestControllerAdvice
+public class VersionConflictAdvice {
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    ResponseEntity<?> conflict(){
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * An author whose name another author got concurrently, after the write checked the name.
+     */
+    @ExceptionHandler(AuthorNameConflictException.class)
+    ResponseEntity<?> nameConflict(){
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
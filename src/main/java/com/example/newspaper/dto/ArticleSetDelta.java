@@ -0,0 +1,36 @@
+package com.example.newspaper.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ids of articles to add to and remove from a site; in a response, the ids that were actually added and removed.
+ */
+public class ArticleSetDelta {
+    private List<Integer> add = new ArrayList<>();
+    private List<Integer> remove = new ArrayList<>();
+
+    public ArticleSetDelta() {
+    }
+
+    public ArticleSetDelta(List<Integer> add, List<Integer> remove) {
+        this.add = add;
+        this.remove = remove;
+    }
+
+    public List<Integer> getAdd() {
+        return add;
+    }
+
+    public void setAdd(List<Integer> add) {
+        this.add = add;
+    }
+
+    public List<Integer> getRemove() {
+        return remove;
+    }
+
+    public void setRemove(List<Integer> remove) {
+        this.remove = remove;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.newspaper.dto;
+
+import java.util.List;
+
+public class CacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long queryCacheHitCount;
+    private final long queryCacheMissCount;
+    private final List<Region> regions;
+
+    public CacheStatistics(long hitCount, long missCount, long putCount,
+                           long queryCacheHitCount, long queryCacheMissCount, List<Region> regions) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.queryCacheHitCount = queryCacheHitCount;
+        this.queryCacheMissCount = queryCacheMissCount;
+        this.regions = regions;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public long getQueryCacheHitCount() {
+        return queryCacheHitCount;
+    }
+
+    public long getQueryCacheMissCount() {
+        return queryCacheMissCount;
+    }
+
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    public static class Region {
+        private final String name;
+        private final long hitCount;
+        private final long missCount;
+        private final long putCount;
+        private final long size;
+
+        public Region(String name, long hitCount, long missCount, long putCount, long size) {
+            this.name = name;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.putCount = putCount;
+            this.size = size;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getPutCount() {
+            return putCount;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.newspaper.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing ordered by id (or another integer key, like the bucket of a count).
+ * The next cursor is an opaque token of the last id on the page, or null on the last page.
+ */
+public class CursorPage<T> {
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 500;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds the page from rows fetched with a limit of {@code size + 1};
+     * the extra row only tells that there is a next page.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Integer> idOf){
+        if(rows.size() <= size){
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, encodeCursor(idOf.apply(items.get(size - 1))));
+    }
+
+    /**
+     * Builds the page from the items read for the first {@code size} ids of a page of ids
+     * fetched with a limit of {@code size + 1}.
+     */
+    public static <T> CursorPage<T> ofIds(List<T> items, List<Integer> pageIds, int size){
+        if(pageIds.size() <= size){
+            return new CursorPage<>(items, null);
+        }
+        return new CursorPage<>(items, encodeCursor(pageIds.get(size - 1)));
+    }
+
+    public static int limitSize(Integer size){
+        if(size == null){
+            return DEFAULT_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public static String encodeCursor(Integer id){
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the id after which the page starts, 0 for the first page.
+     *
+     * @throws IllegalArgumentException if the cursor is not a token issued by {@link #encodeCursor(Integer)}
+     */
+    public static int decodeCursor(String cursor){
+        if(cursor == null || cursor.isEmpty()){
+            return 0;
+        }
+        return Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
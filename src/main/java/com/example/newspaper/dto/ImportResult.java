@@ -0,0 +1,13 @@
+package com.example.newspaper.dto;
+
+public class ImportResult {
+    private final int imported;
+
+    public ImportResult(int imported) {
+        this.imported = imported;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.newspaper.dto;
+
+import java.util.List;
+
+public class PersistenceStatistics {
+    private final long sessions;
+    private final long statements;
+    private final long queries;
+    private final long slowestQueryMillis;
+    private final String slowestQuery;
+    private final long entityLoads;
+    private final long entityFetches;
+    private final long collectionLoads;
+    private final long collectionFetches;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long flushes;
+    private final long transactions;
+    private final List<Endpoint> endpoints;
+
+    public PersistenceStatistics(long sessions, long statements, long queries, long slowestQueryMillis, String slowestQuery,
+                                 long entityLoads, long entityFetches, long collectionLoads, long collectionFetches,
+                                 long cacheHits, long cacheMisses, long flushes, long transactions, List<Endpoint> endpoints) {
+        this.sessions = sessions;
+        this.statements = statements;
+        this.queries = queries;
+        this.slowestQueryMillis = slowestQueryMillis;
+        this.slowestQuery = slowestQuery;
+        this.entityLoads = entityLoads;
+        this.entityFetches = entityFetches;
+        this.collectionLoads = collectionLoads;
+        this.collectionFetches = collectionFetches;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.flushes = flushes;
+        this.transactions = transactions;
+        this.endpoints = endpoints;
+    }
+
+    public long getSessions() {
+        return sessions;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    public long getSlowestQueryMillis() {
+        return slowestQueryMillis;
+    }
+
+    public String getSlowestQuery() {
+        return slowestQuery;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public long getEntityFetches() {
+        return entityFetches;
+    }
+
+    public long getCollectionLoads() {
+        return collectionLoads;
+    }
+
+    public long getCollectionFetches() {
+        return collectionFetches;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * The persistence work of the requests to one endpoint, summed over all of them.
+     */
+    public static class Endpoint {
+        private final String endpoint;
+        private final long requests;
+        private final long statements;
+        private final long maxStatements;
+        private final long queries;
+        private final long entityLoads;
+        private final long entityFetches;
+        private final long collectionLoads;
+        private final long collectionFetches;
+        private final long cacheHits;
+        private final long cacheMisses;
+        private final long flushes;
+
+        public Endpoint(String endpoint, long requests, long statements, long maxStatements, long queries,
+                        long entityLoads, long entityFetches, long collectionLoads, long collectionFetches,
+                        long cacheHits, long cacheMisses, long flushes) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.statements = statements;
+            this.maxStatements = maxStatements;
+            this.queries = queries;
+            this.entityLoads = entityLoads;
+            this.entityFetches = entityFetches;
+            this.collectionLoads = collectionLoads;
+            this.collectionFetches = collectionFetches;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            this.flushes = flushes;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public double getStatementsPerRequest() {
+            return requests == 0 ? 0 : (double) statements / requests;
+        }
+
+        public long getMaxStatements() {
+            return maxStatements;
+        }
+
+        public long getQueries() {
+            return queries;
+        }
+
+        public long getEntityLoads() {
+            return entityLoads;
+        }
+
+        public long getEntityFetches() {
+            return entityFetches;
+        }
+
+        public long getCollectionLoads() {
+            return collectionLoads;
+        }
+
+        public long getCollectionFetches() {
+            return collectionFetches;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+    }
+}
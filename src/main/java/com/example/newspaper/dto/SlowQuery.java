@@ -0,0 +1,39 @@
+package com.example.newspaper.dto;
+
+import java.time.Instant;
+
+public class SlowQuery {
+    private final Instant executedAt;
+    private final String endpoint;
+    private final String query;
+    private final long timeMillis;
+    private final int rows;
+
+    public SlowQuery(Instant executedAt, String endpoint, String query, long timeMillis, int rows) {
+        this.executedAt = executedAt;
+        this.endpoint = endpoint;
+        this.query = query;
+        this.timeMillis = timeMillis;
+        this.rows = rows;
+    }
+
+    public Instant getExecutedAt() {
+        return executedAt;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.newspaper.entity;
 
+import com.example.newspaper.text.TitleSimilarity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.validator.constraints.Length;
 
 import javax.persistence.*;
@@ -9,11 +14,24 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "article")
+@Table(indexes = {
+        @Index(name = "idx_article_title_english", columnList = "titleEnglish"),
+        @Index(name = "idx_article_title_german", columnList = "titleGerman"),
+        @Index(name = "idx_article_identifiers", columnList = "issnNumber, isbnNumber, editionNumber")
+})
 public class Article {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "article_seq")
+    @SequenceGenerator(name = "article_seq", sequenceName = "article_seq", allocationSize = 50)
     private Integer id;
 
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     @NotNull
     @Length(max = 20, message = "20 character limit exceeded")
     private String titleEnglish;
@@ -23,20 +41,35 @@ public class Article {
     private Integer yearPublication;
     private Integer editionNumber;
 
-    @ManyToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "article-authors")
     @JsonIgnoreProperties({"articles"})
     @JoinTable(name = "article_author",
             joinColumns = @JoinColumn(name = "article_id"),
-            inverseJoinColumns = @JoinColumn(name = "author_id"))
+            inverseJoinColumns = @JoinColumn(name = "author_id"),
+            indexes = @Index(name = "idx_article_author_author", columnList = "author_id"))
     private Set<Author> authors = new HashSet<>();
 
-    @ManyToOne(cascade = CascadeType.ALL)
-    @JsonIgnoreProperties({"articles"})
+    /**
+     * Only a new site is written along with its article; a site with an id is resolved to the stored one,
+     * and deleting an article leaves its site.
+     */
+    @ManyToOne(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
+    @JsonIgnoreProperties({"articles", "hibernateLazyInitializer", "handler"})
     @JoinTable(name = "article_site",
             joinColumns = @JoinColumn(name = "article_id"),
-            inverseJoinColumns = @JoinColumn(name = "site_id"))
+            inverseJoinColumns = @JoinColumn(name = "site_id"),
+            indexes = @Index(name = "idx_article_site_site", columnList = "site_id"))
     private Site site;
 
+    @ElementCollection
+    @JsonIgnore
+    @CollectionTable(name = "article_title_band",
+            joinColumns = @JoinColumn(name = "article_id"),
+            indexes = @Index(name = "idx_article_title_band", columnList = "band"))
+    @Column(name = "band")
+    private Set<Long> titleBands = new HashSet<>();
+
     public Integer getId() {
         return id;
     }
@@ -45,12 +78,21 @@ public class Article {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitleEnglish() {
         return titleEnglish;
     }
 
     public void setTitleEnglish(String titleEnglish) {
         this.titleEnglish = titleEnglish;
+        refreshTitleBands();
     }
 
     public String getTitleGerman() {
@@ -59,6 +101,7 @@ public class Article {
 
     public void setTitleGerman(String titleGerman) {
         this.titleGerman = titleGerman;
+        refreshTitleBands();
     }
 
     public Integer getIssnNumber() {
@@ -108,4 +151,17 @@ public class Article {
     public void setSite(Site site) {
         this.site = site;
     }
-}
\ No newline at end of file
+
+    public Set<Long> getTitleBands() {
+        return titleBands;
+    }
+
+    /**
+     * Recomputes the LSH band keys of both titles. Called whenever a title changes,
+     * and by the backfill for rows that were written without them.
+     */
+    public void refreshTitleBands() {
+        titleBands.clear();
+        titleBands.addAll(TitleSimilarity.bandKeys(titleEnglish, titleGerman));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.newspaper.entity;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The number of articles in a bucket of a dimension: per year of publication, per edition number,
+ * per site and per author (the buckets of the last two are the ids). Kept up to date on every write
+ * of an article, so the statistics are read from these rows instead of being counted over the articles.
+ * A bucket whose articles were all removed keeps its row with 0 articles.
+ */
+@Entity
+@IdClass(ArticleCount.Key.class)
+public class ArticleCount {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Dimension dimension;
+
+    @Id
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Long articles;
+
+    protected ArticleCount() {
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public Integer getBucket() {
+        return bucket;
+    }
+
+    public Long getArticles() {
+        return articles;
+    }
+
+    public enum Dimension {
+        YEAR, EDITION, SITE, AUTHOR
+    }
+
+    public static class Key implements Serializable {
+        private Dimension dimension;
+        private Integer bucket;
+
+        public Key() {
+        }
+
+        public Key(Dimension dimension, Integer bucket) {
+            this.dimension = dimension;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return dimension == key.dimension && Objects.equals(bucket, key.bucket);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dimension, bucket);
+        }
+    }
+}
@@ -1,22 +1,46 @@
 package com.example.newspaper.entity;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
+import java.text.Normalizer;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author")
+@Table(indexes = @Index(name = "idx_author_normalized_name", columnList = "normalizedName", unique = true))
 public class Author {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_seq", allocationSize = 50)
     private Integer id;
 
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     private String fullName;
 
+    /**
+     * The full name in the form authors are matched by, see {@link #normalizeName(String)}.
+     */
+    @JsonIgnore
+    private String normalizedName;
+
+    /**
+     * Not part of the JSON, like the articles of a site; they are read page by page from /authors/{id}/articles.
+     */
     @ManyToMany(mappedBy = "authors",  cascade = CascadeType.ALL)
-    @JsonIgnoreProperties({"authors"})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author-articles")
+    @JsonIgnore
     private Set<Article> articles = new HashSet<>();
 
     public Integer getId() {
@@ -27,12 +51,29 @@ public class Author {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getFullName() {
         return fullName;
     }
 
     public void setFullName(String fullName) {
         this.fullName = fullName;
+        refreshNormalizedName();
+    }
+
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    public void refreshNormalizedName() {
+        this.normalizedName = normalizeName(fullName);
     }
 
     public Set<Article> getArticles() {
@@ -43,6 +84,20 @@ public class Author {
         this.articles = articles;
     }
 
+    /**
+     * Case, Unicode compatibility forms and runs of whitespace are ignored; blank names normalize to null.
+     */
+    public static String normalizeName(String fullName){
+        if(fullName == null){
+            return null;
+        }
+        String normalized = Normalizer.normalize(fullName, Normalizer.Form.NFKC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -53,6 +108,6 @@ public class Author {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, fullName, articles);
+        return Objects.hash(id, fullName);
     }
 }
@@ -0,0 +1,81 @@
+package com.example.newspaper.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * A change of an article, author or site, written to this table (the outbox) in the transaction of the change.
+ * The event names the entity and the version it was changed to; the position is its place in the change feed,
+ * given once the transaction has committed, in the order the events became visible, so a consumer that has
+ * seen a position has seen every event before it.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_change_event_position", columnList = "position", unique = true))
+public class ChangeEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+
+    private Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Integer entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Operation operation;
+
+    /**
+     * The version the entity was changed to, none for a deletion.
+     */
+    private Long entityVersion;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    protected ChangeEvent() {
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public Integer getEntityId() {
+        return entityId;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Long getEntityVersion() {
+        return entityVersion;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public enum EntityType {
+        ARTICLE, AUTHOR, SITE
+    }
+
+    public enum Operation {
+        CREATED, UPDATED, DELETED
+    }
+}
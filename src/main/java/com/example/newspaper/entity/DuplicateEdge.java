@@ -0,0 +1,91 @@
+package com.example.newspaper.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A scored pair of duplicate articles. Every pair is stored in both directions, so the duplicates
+ * of an article are found by the primary key prefix. Each scored article also has an edge to itself,
+ * which marks that its duplicates have been computed.
+ */
+@Entity
+@IdClass(DuplicateEdge.Key.class)
+@Table(indexes = @Index(name = "idx_duplicate_edge_duplicate", columnList = "duplicateId"))
+public class DuplicateEdge implements Persistable<DuplicateEdge.Key> {
+    @Id
+    private Integer articleId;
+
+    @Id
+    private Integer duplicateId;
+
+    private Integer score;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected DuplicateEdge() {
+    }
+
+    public DuplicateEdge(Integer articleId, Integer duplicateId, Integer score) {
+        this.articleId = articleId;
+        this.duplicateId = duplicateId;
+        this.score = score;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(articleId, duplicateId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public Integer getArticleId() {
+        return articleId;
+    }
+
+    public Integer getDuplicateId() {
+        return duplicateId;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public static class Key implements Serializable {
+        private Integer articleId;
+        private Integer duplicateId;
+
+        public Key() {
+        }
+
+        public Key(Integer articleId, Integer duplicateId) {
+            this.articleId = articleId;
+            this.duplicateId = duplicateId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(articleId, key.articleId) && Objects.equals(duplicateId, key.duplicateId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(articleId, duplicateId);
+        }
+    }
+}
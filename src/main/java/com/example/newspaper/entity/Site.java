@@ -1,21 +1,37 @@
 package com.example.newspaper.entity;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "site")
 public class Site {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "site_seq")
+    @SequenceGenerator(name = "site_seq", sequenceName = "site_seq", allocationSize = 50)
     private Integer id;
 
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     private String weblink;
 
+    /**
+     * Not part of the JSON, a large site would load and serialize all of its articles;
+     * they are read page by page from /sites/{id}/articles.
+     */
     @OneToMany(mappedBy = "site",  cascade = CascadeType.ALL)
-    @JsonIgnoreProperties({"site"})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "site-articles")
+    @JsonIgnore
     private Set<Article> articles = new HashSet<>();
 
     public Integer getId() {
@@ -26,6 +42,14 @@ public class Site {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getWeblink() {
         return weblink;
     }
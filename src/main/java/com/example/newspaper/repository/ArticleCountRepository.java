@@ -0,0 +1,15 @@
+package com.example.newspaper.repository;
+
+import com.example.newspaper.entity.ArticleCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArticleCountRepository extends JpaRepository<ArticleCount, ArticleCount.Key> {
+
+    List<ArticleCount> findByDimensionAndArticlesGreaterThanAndBucketGreaterThanOrderByBucketAsc(
+            ArticleCount.Dimension dimension, Long articles, Integer afterBucket, Pageable pageable);
+}
@@ -1,9 +1,132 @@
 package com.example.newspaper.repository;
 
 import com.example.newspaper.entity.Article;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface ArticleRepository extends JpaRepository<Article, Integer> {
+
+    @Query("select a.id from Article a where a.titleEnglish = :titleEnglish")
+    List<Integer> findIdsByTitleEnglish(@Param("titleEnglish") String titleEnglish);
+
+    @Query("select a.id from Article a where a.titleGerman = :titleGerman")
+    List<Integer> findIdsByTitleGerman(@Param("titleGerman") String titleGerman);
+
+    @Query("select a.id from Article a where a.titleEnglish in :titlesEnglish")
+    List<Integer> findIdsByTitleEnglishIn(@Param("titlesEnglish") Collection<String> titlesEnglish);
+
+    @Query("select a.id from Article a where a.titleGerman in :titlesGerman")
+    List<Integer> findIdsByTitleGermanIn(@Param("titlesGerman") Collection<String> titlesGerman);
+
+    @Query("select distinct a.id from Article a join a.titleBands band where band in :bands")
+    List<Integer> findIdsByTitleBands(@Param("bands") Collection<Long> bands);
+
+    @Query("select a from Article a where a.titleBands is empty and a.id > :afterId order by a.id")
+    List<Article> findWithoutTitleBands(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select distinct a.id from Article a join a.authors au " +
+            "where a.issnNumber = :issnNumber and a.isbnNumber = :isbnNumber " +
+            "and a.editionNumber = :editionNumber and au.id in :authorIds")
+    List<Integer> findIdsByIdentifiersAndAuthors(@Param("issnNumber") Integer issnNumber,
+                                                 @Param("isbnNumber") Integer isbnNumber,
+                                                 @Param("editionNumber") Integer editionNumber,
+                                                 @Param("authorIds") Collection<Integer> authorIds);
+
+    /**
+     * Returns the id, ISSN, ISBN, edition and author of the articles by the given authors with one of the ISSNs,
+     * for matching the combined identifier keys of many articles in memory.
+     */
+    @Query("select a.id, a.issnNumber, a.isbnNumber, a.editionNumber, au.id from Article a join a.authors au " +
+            "where au.id in :authorIds and a.issnNumber in :issnNumbers")
+    List<Object[]> findIdentifiersByAuthors(@Param("authorIds") Collection<Integer> authorIds,
+                                            @Param("issnNumbers") Collection<Integer> issnNumbers);
+
+    /**
+     * Returns one page of the ids of the articles of a site, in the order of the pageable.
+     */
+    @Query("select a.id from Article a where a.site.id = :siteId")
+    List<Integer> findIdsBySiteId(@Param("siteId") Integer siteId, Pageable pageable);
+
+    /**
+     * Returns one page of the ids of the articles of an author after the given id, through the index
+     * of the join table on author_id.
+     */
+    @Query("select a.id from Article a join a.authors au where au.id = :authorId and a.id > :afterId order by a.id")
+    List<Integer> findIdsByAuthorIdAndIdGreaterThan(@Param("authorId") Integer authorId, @Param("afterId") Integer afterId,
+                                                   Pageable pageable);
+
+    /**
+     * Counts on the join table alone, through its index on site_id.
+     */
+    @Query(value = "select count(*) from article_site where site_id = :siteId", nativeQuery = true)
+    long countBySiteId(@Param("siteId") Integer siteId);
+
+    /**
+     * Reads the titles as plain values, the search index does not need the entities.
+     */
+    @Query("select a.id as id, a.titleEnglish as titleEnglish, a.titleGerman as titleGerman " +
+            "from Article a where a.id > :afterId order by a.id")
+    List<ArticleTitleView> findTitlesByIdGreaterThan(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select a.id as id, a.titleEnglish as titleEnglish, a.titleGerman as titleGerman " +
+            "from Article a where a.id in :ids")
+    List<ArticleTitleView> findTitlesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Reads the rows 500 at a time through a cursor. MySQL Connector/J ignores a positive fetch size and reads
+     * the whole result unless useCursorFetch=true, which MySqlCursorFetch sets on the MySQL pools.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select a from Article a order by a.id")
+    Stream<Article> streamAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"authors", "site"})
+    Optional<Article> findById(Integer id);
+
+    /**
+     * Only the site is fetched with the page, a collection fetch would defeat the limit;
+     * the authors of the page are loaded in batches.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @EntityGraph(attributePaths = {"site"})
+    List<Article> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"authors", "site"})
+    List<Article> findDistinctByIdInOrderByIdAsc(Collection<Integer> ids);
+
+    @Query("select a.version from Article a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") Integer id);
+
+    /**
+     * Returns the ids and versions of the articles and of everything their JSON embeds, one row per join row.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select a.id, a.version, au.id, au.version, s.id, s.version from Article a " +
+            "left join a.authors au left join a.site s where a.id in :ids")
+    List<Object[]> findVersionsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select a.id from Article a where a.id > :afterId order by a.id")
+    List<Integer> findIdsByIdGreaterThan(@Param("afterId") Integer afterId, Pageable pageable);
+
+    interface ArticleTitleView {
+        Integer getId();
+
+        String getTitleEnglish();
+
+        String getTitleGerman();
+    }
 }
@@ -1,9 +1,60 @@
 package com.example.newspaper.repository;
 
 import com.example.newspaper.entity.Author;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Integer> {
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    List<Author> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    List<Author> findByNormalizedNameIn(Collection<String> normalizedNames);
+
+    boolean existsByNormalizedName(String normalizedName);
+
+    boolean existsByNormalizedNameAndIdNot(String normalizedName, Integer id);
+
+    @Query("select au from Author au where au.normalizedName is null and au.fullName is not null " +
+            "and au.id > :afterId order by au.id")
+    List<Author> findWithoutNormalizedName(@Param("afterId") Integer afterId, Pageable pageable);
+
+    /**
+     * Moves the articles of a duplicate author to the author it duplicates. Links the article already has
+     * to that author stay with the duplicate and are removed by {@link #deleteArticleLinks(Integer)}.
+     */
+    @Modifying
+    @Query(value = "update article_author set author_id = :authorId where author_id = :duplicateId " +
+            "and article_id not in (select article_id from " +
+            "(select article_id from article_author where author_id = :authorId) linked)", nativeQuery = true)
+    void moveArticleLinks(@Param("duplicateId") Integer duplicateId, @Param("authorId") Integer authorId);
+
+    @Modifying
+    @Query(value = "delete from article_author where author_id = :authorId", nativeQuery = true)
+    void deleteArticleLinks(@Param("authorId") Integer authorId);
+
+    @Query("select au.version from Author au where au.id = :id")
+    Optional<Long> findVersionById(@Param("id") Integer id);
+
+    /**
+     * Returns the id and version of each author, see {@link SiteRepository#findVersionsByIdIn(Collection)}.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select au.id, au.version from Author au where au.id in :ids")
+    List<Object[]> findVersionsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select au.id from Author au where au.id > :afterId order by au.id")
+    List<Integer> findIdsByIdGreaterThan(@Param("afterId") Integer afterId, Pageable pageable);
 }
@@ -0,0 +1,40 @@
+package com.example.newspaper.repository;
+
+import com.example.newspaper.entity.ChangeEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+
+    /**
+     * The committed events without a position, locked, so they get their positions once.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ChangeEvent> findByPositionIsNullOrderByIdAsc(Pageable pageable);
+
+    List<ChangeEvent> findByPositionGreaterThanOrderByPositionAsc(Long position, Pageable pageable);
+
+    @Query("select max(e.position) from ChangeEvent e")
+    Optional<Long> findMaxPosition();
+
+    @Query("select min(e.position) from ChangeEvent e")
+    Optional<Long> findMinPosition();
+
+    @Query("select max(e.position) from ChangeEvent e where e.occurredAt < :before")
+    Optional<Long> findLastPositionBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from ChangeEvent e where e.position < :position")
+    int deleteBeforePosition(@Param("position") Long position);
+}
@@ -0,0 +1,29 @@
+package com.example.newspaper.repository;
+
+import com.example.newspaper.entity.DuplicateEdge;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DuplicateEdgeRepository extends JpaRepository<DuplicateEdge, DuplicateEdge.Key> {
+
+    /**
+     * Reads the edges as plain values, so they do not clash with edges rewritten later in the same transaction.
+     */
+    List<DuplicateEdgeView> findByArticleIdOrderByDuplicateIdAsc(Integer articleId);
+
+    @Modifying
+    @Query("delete from DuplicateEdge e where e.articleId = :articleId or e.duplicateId = :articleId")
+    void deleteAllOfArticle(@Param("articleId") Integer articleId);
+
+    interface DuplicateEdgeView {
+        Integer getDuplicateId();
+
+        Integer getScore();
+    }
+}
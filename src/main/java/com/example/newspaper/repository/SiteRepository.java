@@ -1,9 +1,36 @@
 package com.example.newspaper.repository;
 
 import com.example.newspaper.entity.Site;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface SiteRepository extends JpaRepository<Site, Integer> {
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    List<Site> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    @Query("select s.version from Site s where s.id = :id")
+    Optional<Long> findVersionById(@Param("id") Integer id);
+
+    /**
+     * Returns the id and version of each site. Its JSON embeds nothing (the articles are paged separately),
+     * so the own version changes whenever the representation does.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select s.id, s.version from Site s where s.id in :ids")
+    List<Object[]> findVersionsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select s.id from Site s where s.id > :afterId order by s.id")
+    List<Integer> findIdsByIdGreaterThan(@Param("afterId") Integer afterId, Pageable pageable);
 }
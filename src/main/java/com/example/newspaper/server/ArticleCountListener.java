@@ -0,0 +1,175 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.ArticleCount.Dimension;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.CollectionEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Moves the article counters with the article writes, whatever the write path (the endpoints, the import,
+ * cascades from authors and sites): an inserted article adds to the counters of its year, edition and site,
+ * a deleted one subtracts, an update moves the article between buckets, and the rows of the authors of an
+ * article are counted as they are inserted and deleted. The changes of a transaction are added to the counters
+ * in one go just before the commit, in the same transaction (see {@link TransactionBufferingListener}).
+ * Bulk statements and SQL bypass the entities and are not counted.
+ */
+@Component
+public class ArticleCountListener extends TransactionBufferingListener<Map<Dimension, SortedMap<Integer, Long>>>
+        implements PostCollectionRecreateEventListener, PreCollectionUpdateEventListener, PreCollectionRemoveEventListener {
+    private static final String AUTHORS = Article.class.getName() + ".authors";
+
+    private final ArticleCountService articleCountService;
+    private final JdbcTemplate jdbcTemplate;
+
+    // lazy, the service is only needed once the persistence unit this listener is part of is running
+    public ArticleCountListener(@Lazy ArticleCountService articleCountService, @Lazy JdbcTemplate jdbcTemplate) {
+        this.articleCountService = articleCountService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        super.integrate(metadata, sessionFactory, serviceRegistry);
+        EventListenerRegistry listenerRegistry = serviceRegistry.getService(EventListenerRegistry.class);
+        listenerRegistry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        listenerRegistry.appendListeners(EventType.PRE_COLLECTION_UPDATE, this);
+        listenerRegistry.appendListeners(EventType.PRE_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if(isArticle(event.getPersister())){
+            countArticle(event.getSession(), event.getPersister(), event.getState(), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // the old state is only missing for entities updated without being loaded, which this application does not do
+        if(isArticle(event.getPersister()) && event.getOldState() != null){
+            countArticle(event.getSession(), event.getPersister(), event.getOldState(), -1);
+            countArticle(event.getSession(), event.getPersister(), event.getState(), 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if(isArticle(event.getPersister())){
+            countArticle(event.getSession(), event.getPersister(), event.getDeletedState(), -1);
+        }
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        if(isAuthors(event)){
+            countAuthors(event.getSession(), (Collection<?>) event.getCollection(), 1);
+        }
+    }
+
+    @Override
+    public void onPreUpdateCollection(PreCollectionUpdateEvent event) {
+        if(isAuthors(event)){
+            countStoredAuthors(event, -1);
+            countAuthors(event.getSession(), (Collection<?>) event.getCollection(), 1);
+        }
+    }
+
+    @Override
+    public void onPreRemoveCollection(PreCollectionRemoveEvent event) {
+        if(isAuthors(event)){
+            countStoredAuthors(event, -1);
+        }
+    }
+
+    private void countArticle(EventSource session, EntityPersister persister, Object[] state, int change){
+        int[] properties = {
+                persister.getEntityMetamodel().getPropertyIndex("yearPublication"),
+                persister.getEntityMetamodel().getPropertyIndex("editionNumber"),
+                persister.getEntityMetamodel().getPropertyIndex("site")};
+        count(session, Dimension.YEAR, (Integer) state[properties[0]], change);
+        count(session, Dimension.EDITION, (Integer) state[properties[1]], change);
+        count(session, Dimension.SITE, idOf(session, state[properties[2]]), change);
+    }
+
+    private void countAuthors(EventSource session, Collection<?> authors, int change){
+        for(Object author : authors){
+            count(session, Dimension.AUTHOR, idOf(session, author), change);
+        }
+    }
+
+    /**
+     * Counts the authors as they are stored: the snapshot the collection was loaded with, or the rows
+     * of the join table when the collection was never loaded (an article deleted with its authors unread).
+     */
+    private void countStoredAuthors(AbstractCollectionEvent event, int change){
+        Object snapshot = event.getCollection().getStoredSnapshot();
+        if(snapshot instanceof Map){
+            countAuthors(event.getSession(), ((Map<?, ?>) snapshot).keySet(), change);
+        }
+        else if(snapshot instanceof Collection){
+            countAuthors(event.getSession(), (Collection<?>) snapshot, change);
+        }
+        else if(event.getAffectedOwnerIdOrNull() != null){
+            for(Integer authorId : jdbcTemplate.queryForList("select author_id from article_author where article_id = ?",
+                    Integer.class, event.getAffectedOwnerIdOrNull())){
+                count(event.getSession(), Dimension.AUTHOR, authorId, change);
+            }
+        }
+    }
+
+    private void count(EventSource session, Dimension dimension, Integer bucket, int change){
+        if(bucket == null){
+            return;
+        }
+        pending(session)
+                .computeIfAbsent(dimension, key -> new TreeMap<>())
+                .merge(bucket, (long) change, Long::sum);
+    }
+
+    @Override
+    protected Map<Dimension, SortedMap<Integer, Long>> newPending() {
+        return new EnumMap<>(Dimension.class);
+    }
+
+    @Override
+    protected void beforeCompletion(Map<Dimension, SortedMap<Integer, Long>> changes) {
+        articleCountService.apply(changes);
+    }
+
+    private static boolean isArticle(EntityPersister persister){
+        return persister.getMappedClass() == Article.class;
+    }
+
+    private static boolean isAuthors(AbstractCollectionEvent event){
+        // the collection of a new article only knows its role after the flush, the entry of the session knows it
+        CollectionEntry entry = event.getSession().getPersistenceContextInternal().getCollectionEntry(event.getCollection());
+        if(entry == null){
+            return AUTHORS.equals(event.getCollection().getRole());
+        }
+        CollectionPersister persister = entry.getCurrentPersister() != null ? entry.getCurrentPersister() : entry.getLoadedPersister();
+        return persister != null && AUTHORS.equals(persister.getRole());
+    }
+
+    private static Integer idOf(EventSource session, Object entity){
+        if(entity == null){
+            return null;
+        }
+        if(entity instanceof HibernateProxy){
+            return (Integer) ((HibernateProxy) entity).getHibernateLazyInitializer().getIdentifier();
+        }
+        return (Integer) session.getEntityPersister(null, entity).getIdentifier(entity, session);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.ArticleCount;
+import com.example.newspaper.repository.ArticleCountRepository;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The article counts per year, edition, site and author (the statistics endpoints).
+ * Reading a dimension reads its counter rows only, however many articles there are; the counters are moved
+ * by the article writes in the transaction of the write (see {@link ArticleCountListener}).
+ * Articles inserted bypassing the entities are only counted by a rebuild, which counts the whole table.
+ */
+@Service
+public class ArticleCountService {
+    private static final Logger log = LoggerFactory.getLogger(ArticleCountService.class);
+
+    // both take the dimension, the bucket and the change twice: as the count of a new bucket and as the increment
+    private static final String MYSQL_UPSERT = "insert into article_count (dimension, bucket, articles) values (?, ?, ?)"
+            + " on duplicate key update articles = articles + ?";
+    private static final String MERGE = "merge into article_count c"
+            + " using (values (cast(? as varchar(16)), cast(? as int), cast(? as bigint))) v (dimension, bucket, articles)"
+            + " on c.dimension = v.dimension and c.bucket = v.bucket"
+            + " when matched then update set articles = c.articles + ?"
+            + " when not matched then insert (dimension, bucket, articles) values (v.dimension, v.bucket, v.articles)";
+    private static final List<String> REBUILD = List.of(
+            "delete from article_count",
+            "insert into article_count (dimension, bucket, articles) select 'YEAR', year_publication, count(*)"
+                    + " from article where year_publication is not null group by year_publication",
+            "insert into article_count (dimension, bucket, articles) select 'EDITION', edition_number, count(*)"
+                    + " from article where edition_number is not null group by edition_number",
+            "insert into article_count (dimension, bucket, articles) select 'SITE', site_id, count(*)"
+                    + " from article_site group by site_id",
+            "insert into article_count (dimension, bucket, articles) select 'AUTHOR', author_id, count(*)"
+                    + " from article_author group by author_id");
+
+    private final ArticleCountRepository articleCountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private volatile String upsert;
+
+    public ArticleCountService(ArticleCountRepository articleCountRepository, JdbcTemplate jdbcTemplate,
+                               EntityManagerFactory entityManagerFactory) {
+        this.articleCountRepository = articleCountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Returns up to {@code limit} buckets of the dimension that have articles, after the given bucket, ordered by bucket.
+     */
+    public List<ArticleCount> find(ArticleCount.Dimension dimension, int afterBucket, int limit){
+        return articleCountRepository.findByDimensionAndArticlesGreaterThanAndBucketGreaterThanOrderByBucketAsc(
+                dimension, 0L, afterBucket, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Adds the changes to the counters, in the current transaction. Every bucket is moved by a single upsert
+     * statement: an update of a missing row followed by an insert would take a gap lock on MySQL, and two
+     * transactions adding the same new bucket (e.g. a new author) would deadlock on their inserts.
+     * The buckets are upserted in the order of the dimensions and buckets, so concurrent writers lock
+     * the existing rows in the same order.
+     */
+    void apply(Map<ArticleCount.Dimension, SortedMap<Integer, Long>> changes){
+        String upsert = upsert();
+        changes.forEach((dimension, buckets) -> buckets.forEach((bucket, change) -> {
+            if(change != 0){
+                jdbcTemplate.update(upsert, dimension.name(), bucket, change, change);
+            }
+        }));
+    }
+
+    private String upsert(){
+        if(upsert == null){
+            Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            upsert = dialect instanceof MySQLDialect ? MYSQL_UPSERT : MERGE;
+        }
+        return upsert;
+    }
+
+    /**
+     * Counts all the articles again, replacing the counters.
+     */
+    @Transactional
+    public void rebuild(){
+        REBUILD.forEach(jdbcTemplate::update);
+    }
+
+    /**
+     * Counts the articles stored before the counters existed, once, when there are articles but no counters yet.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty(){
+        if(articleCountRepository.count() == 0 && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists(select 1 from article)", Boolean.class))){
+            rebuild();
+            log.info("Counted the articles per year, edition, site and author");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.repository.ArticleRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes all articles as newline-delimited JSON straight from a database cursor.
+ * The output is flushed and the persistence context cleared after every chunk,
+ * so memory use does not depend on the size of the table.
+ */
+@Service
+public class ArticleExportService {
+    private static final int CHUNK_SIZE = 500;
+
+    private final ArticleRepository articleRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ArticleExportService(ArticleRepository articleRepository, ObjectMapper objectMapper) {
+        this.articleRepository = articleRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportNdjson(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // A full scan would push everything else out of the second-level cache, so it only reads from it
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+
+        try (Stream<Article> articles = articleRepository.streamAll()) {
+            int written = 0;
+            Iterator<Article> iterator = articles.iterator();
+            while(iterator.hasNext()){
+                generator.writeObject(iterator.next());
+                generator.writeRaw('\n');
+                if(++written % CHUNK_SIZE == 0){
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        generator.flush();
+    }
+}
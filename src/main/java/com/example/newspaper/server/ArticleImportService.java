@@ -0,0 +1,125 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Site;
+import com.example.newspaper.repository.ArticleRepository;
+import com.example.newspaper.repository.SiteRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports articles from a JSON array or newline-delimited JSON without holding the whole input in memory.
+ * Articles are read and written in chunks: the authors of a chunk are resolved by {@link AuthorResolver},
+ * the sites referenced by id with one query, the chunk is inserted in JDBC batches, its duplicate edges are
+ * scored and inserted for the chunk as a whole and the persistence context is cleared. The search index picks the articles up once the import commits.
+ * The whole import is one transaction, so a bad article rolls back everything.
+ */
+@Service
+public class ArticleImportService {
+    private static final int CHUNK_SIZE = 500;
+
+    private final ArticleRepository articleRepository;
+    private final AuthorResolver authorResolver;
+    private final SiteRepository siteRepository;
+    private final DuplicateGraphService duplicateGraphService;
+    private final ArticleSearchIndex articleSearchIndex;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ArticleImportService(ArticleRepository articleRepository, AuthorResolver authorResolver,
+                                SiteRepository siteRepository, DuplicateGraphService duplicateGraphService,
+                                ArticleSearchIndex articleSearchIndex, ObjectMapper objectMapper) {
+        this.articleRepository = articleRepository;
+        this.authorResolver = authorResolver;
+        this.siteRepository = siteRepository;
+        this.duplicateGraphService = duplicateGraphService;
+        this.articleSearchIndex = articleSearchIndex;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the number of imported articles
+     * @throws IllegalArgumentException if an article has an id or refers to an author or site that does not exist
+     * @throws IOException if the input is not valid JSON or not articles
+     * @throws javax.validation.ConstraintViolationException if an article is not valid
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public int importArticles(InputStream inputStream) throws IOException {
+        int imported = 0;
+        List<Article> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (MappingIterator<Article> articles = objectMapper.readerFor(Article.class).readValues(inputStream)) {
+            // hasNext() and next() would wrap the parse errors in runtime exceptions
+            while(articles.hasNextValue()){
+                chunk.add(articles.nextValue());
+                if(chunk.size() == CHUNK_SIZE){
+                    imported += importChunk(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        if(!chunk.isEmpty()){
+            imported += importChunk(chunk);
+        }
+        return imported;
+    }
+
+    private int importChunk(List<Article> articles){
+        for(Article article : articles){
+            if(article.getId() != null){
+                throw new IllegalArgumentException("Imported articles must not have an id");
+            }
+        }
+        authorResolver.resolve(articles);
+        resolveSites(articles);
+
+        articleRepository.saveAll(articles);
+        entityManager.flush();
+        duplicateGraphService.addAll(articles);
+        articles.forEach(articleSearchIndex::index);
+        entityManager.flush();
+        entityManager.clear();
+        return articles.size();
+    }
+
+    private void resolveSites(List<Article> articles){
+        Set<Integer> siteIds = new HashSet<>();
+        for(Article article : articles){
+            if(article.getSite() != null && article.getSite().getId() != null){
+                siteIds.add(article.getSite().getId());
+            }
+        }
+        Map<Integer, Site> sites = findExisting(siteRepository.findAllById(siteIds), siteIds, Site::getId, "site");
+
+        for(Article article : articles){
+            if(article.getSite() != null && article.getSite().getId() != null){
+                article.setSite(sites.get(article.getSite().getId()));
+            }
+        }
+    }
+
+    private <T> Map<Integer, T> findExisting(List<T> found, Set<Integer> ids, Function<T, Integer> idOf, String type){
+        Map<Integer, T> byId = found.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        for(Integer id : ids){
+            if(!byId.containsKey(id)){
+                throw new IllegalArgumentException("Unknown " + type + " id " + id);
+            }
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Author;
+
+import java.util.Objects;
+
+/**
+ * The fields of an article that the duplicate scoring reads, without the entity, its authors and its site.
+ * The authors are kept as their ids; authors that are not saved yet have none and match no other author.
+ */
+record ArticleScoringFields(int id, String titleEnglish, String titleGerman, Integer issnNumber, Integer isbnNumber,
+                            Integer yearPublication, Integer editionNumber, int[] authorIds) {
+
+    static ArticleScoringFields of(Article article){
+        int[] authorIds = article.getAuthors().stream()
+                .map(Author::getId)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return new ArticleScoringFields(article.getId() == null ? 0 : article.getId(), article.getTitleEnglish(),
+                article.getTitleGerman(), article.getIssnNumber(), article.getIsbnNumber(),
+                article.getYearPublication(), article.getEditionNumber(), authorIds);
+    }
+}
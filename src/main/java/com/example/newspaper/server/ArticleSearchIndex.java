@@ -0,0 +1,392 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.repository.ArticleRepository;
+import com.example.newspaper.repository.ArticleRepository.ArticleTitleView;
+import com.example.newspaper.text.TitleSimilarity;
+import com.example.newspaper.text.TitleTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the English and German titles of all articles.
+ * Every title is split into terms by {@link TitleTokenizer} with the analysis of its language, and every term
+ * maps to the sorted ids of the articles that contain it. The terms are kept sorted, so a query word also
+ * matches the terms it is a prefix of. An article matches if it matches every word of the query; matches are
+ * ranked with BM25, a prefix match weighs half of an exact one.
+ * The index is built from the database on startup and follows the article writes once they commit: a transaction
+ * only collects the ids of the articles it wrote, their titles are read again after the commit.
+ * It only holds ids, the articles of a result are loaded from the database, so an article that was
+ * deleted behind the index's back (with its site or author) simply drops out of the results.
+ */
+@Service
+public class ArticleSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(ArticleSearchIndex.class);
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_TERMS = 256;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Comparator<Hit> WORST_HIT_FIRST = Comparator.comparingDouble((Hit hit) -> hit.score)
+            .thenComparing((Hit hit) -> hit.id, Comparator.reverseOrder());
+
+    private final ArticleRepository articleRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Integer, String[]> documents = new HashMap<>();
+    private long totalLength;
+
+    public ArticleSearchIndex(ArticleRepository articleRepository, PlatformTransactionManager transactionManager) {
+        this.articleRepository = articleRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build(){
+        long start = System.nanoTime();
+        int lastId = 0;
+        while(true){
+            final int afterId = lastId;
+            List<ArticleTitleView> chunk = readOnlyTransaction.execute(status ->
+                    articleRepository.findTitlesByIdGreaterThan(afterId, PageRequest.of(0, CHUNK_SIZE)));
+            if(chunk == null || chunk.isEmpty()){
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                for(ArticleTitleView title : chunk){
+                    // an article written while the index is built was indexed from a newer state than this row
+                    if(!documents.containsKey(title.getId())){
+                        add(title.getId(), title.getTitleEnglish(), title.getTitleGerman());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+        log.info("Indexed the titles of {} articles in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * (Re)indexes the titles of the article once the current transaction commits, or right away without one.
+     */
+    public void index(Article article){
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            pendingReindex().collect(article.getId());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(article.getId());
+            add(article.getId(), article.getTitleEnglish(), article.getTitleGerman());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer articleId){
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            pendingReindex().collect(articleId);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(articleId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size(){
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching articles, best first.
+     */
+    public List<Integer> search(String query, int limit){
+        List<Set<String>> queryTerms = TitleTokenizer.queryTerms(query);
+        if(queryTerms.isEmpty()){
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if(documents.isEmpty()){
+                return List.of();
+            }
+            List<List<TermMatch>> words = new ArrayList<>();
+            for(Set<String> alternatives : queryTerms){
+                List<TermMatch> matches = expand(alternatives);
+                if(matches.isEmpty()){
+                    return List.of();
+                }
+                words.add(matches);
+            }
+            // The candidates are the articles of the rarest word, the other words are looked up per candidate
+            words.sort(Comparator.comparingLong(ArticleSearchIndex::postingsSize));
+
+            Map<Integer, Double> candidates = new HashMap<>();
+            for(TermMatch match : words.get(0)){
+                Postings termPostings = match.postings;
+                for(int i = 0; i < termPostings.size; i++){
+                    candidates.merge(termPostings.ids[i], match.weight, Math::max);
+                }
+            }
+
+            double averageLength = (double) totalLength / documents.size();
+            PriorityQueue<Hit> top = new PriorityQueue<>(WORST_HIT_FIRST);
+            for(Map.Entry<Integer, Double> candidate : candidates.entrySet()){
+                int id = candidate.getKey();
+                double score = candidate.getValue();
+                for(int word = 1; word < words.size() && score > 0; word++){
+                    double weight = weight(words.get(word), id);
+                    score = weight > 0 ? score + weight : 0;
+                }
+                if(score == 0){
+                    continue;
+                }
+                int length = documents.get(id).length;
+                score *= (K1 + 1) / (1 + K1 * (1 - B + B * length / averageLength));
+                top.add(new Hit(id, score));
+                if(top.size() > limit){
+                    top.poll();
+                }
+            }
+
+            List<Integer> ids = new ArrayList<>(top.size());
+            while(!top.isEmpty()){
+                ids.add(top.poll().id);
+            }
+            Collections.reverse(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the terms a query word matches, with their weights, highest first.
+     */
+    private List<TermMatch> expand(Set<String> alternatives){
+        Map<String, Double> weights = new HashMap<>();
+        for(String alternative : alternatives){
+            Postings exact = postings.get(alternative);
+            if(exact != null){
+                weights.put(alternative, idf(exact));
+            }
+            if(alternative.length() < MIN_PREFIX_LENGTH){
+                continue;
+            }
+            int expanded = 0;
+            for(Map.Entry<String, Postings> entry : postings.tailMap(alternative, false).entrySet()){
+                if(!entry.getKey().startsWith(alternative) || expanded++ == MAX_PREFIX_TERMS){
+                    break;
+                }
+                weights.merge(entry.getKey(), PREFIX_WEIGHT * idf(entry.getValue()), Math::max);
+            }
+        }
+
+        List<TermMatch> matches = new ArrayList<>(weights.size());
+        weights.forEach((term, weight) -> matches.add(new TermMatch(postings.get(term), weight)));
+        matches.sort(Comparator.comparingDouble((TermMatch match) -> match.weight).reversed());
+        return matches;
+    }
+
+    private static double weight(List<TermMatch> matches, int id){
+        for(TermMatch match : matches){
+            if(match.postings.contains(id)){
+                return match.weight;
+            }
+        }
+        return 0;
+    }
+
+    private static long postingsSize(List<TermMatch> matches){
+        long size = 0;
+        for(TermMatch match : matches){
+            size += match.postings.size;
+        }
+        return size;
+    }
+
+    private double idf(Postings termPostings){
+        return Math.log(1 + (documents.size() - termPostings.size + 0.5) / (termPostings.size + 0.5));
+    }
+
+    private void add(Integer id, String titleEnglish, String titleGerman){
+        Set<String> terms = TitleTokenizer.terms(titleEnglish, TitleSimilarity.LANGUAGE_ENGLISH);
+        terms.addAll(TitleTokenizer.terms(titleGerman, TitleSimilarity.LANGUAGE_GERMAN));
+        String[] documentTerms = new String[terms.size()];
+        int i = 0;
+        for(String term : terms){
+            Postings termPostings = postings.computeIfAbsent(term, Postings::new);
+            termPostings.add(id);
+            // the document shares the term instance of the index
+            documentTerms[i++] = termPostings.term;
+        }
+        documents.put(id, documentTerms);
+        totalLength += documentTerms.length;
+    }
+
+    private void removeDocument(Integer id){
+        String[] terms = documents.remove(id);
+        if(terms == null){
+            return;
+        }
+        for(String term : terms){
+            Postings termPostings = postings.get(term);
+            termPostings.remove(id);
+            if(termPostings.size == 0){
+                postings.remove(term);
+            }
+        }
+        totalLength -= terms.length;
+    }
+
+    /**
+     * The collector of the current transaction, registered with its first write.
+     */
+    private PendingReindex pendingReindex(){
+        for(TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()){
+            if(synchronization instanceof PendingReindex){
+                return (PendingReindex) synchronization;
+            }
+        }
+        PendingReindex pending = new PendingReindex();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    /**
+     * The ids of the articles a transaction wrote or deleted, only ids, so a large import holds a few bytes
+     * per article until it commits. After the commit every id is dropped from the index and added again
+     * with the titles it has in the database; a deleted article is not found and stays out.
+     * The titles are read on the connection of the committed transaction, which is still bound at this point.
+     */
+    private final class PendingReindex implements TransactionSynchronization {
+        private int[] ids = new int[16];
+        private int size;
+
+        void collect(int id){
+            if(size == ids.length){
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        @Override
+        public void afterCommit() {
+            for(int from = 0; from < size; from += CHUNK_SIZE){
+                List<Integer> chunk = new ArrayList<>();
+                for(int i = from; i < Math.min(size, from + CHUNK_SIZE); i++){
+                    chunk.add(ids[i]);
+                }
+                List<ArticleTitleView> titles = articleRepository.findTitlesByIdIn(chunk);
+                lock.writeLock().lock();
+                try {
+                    chunk.forEach(ArticleSearchIndex.this::removeDocument);
+                    for(ArticleTitleView title : titles){
+                        add(title.getId(), title.getTitleEnglish(), title.getTitleGerman());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * The ids of the articles containing a term, kept sorted in a plain int array.
+     * Ids mostly grow, so adding one is usually an append.
+     */
+    private static final class Postings {
+        private final String term;
+        private int[] ids = new int[2];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        void add(int id){
+            int index = size;
+            if(size > 0 && ids[size - 1] >= id){
+                index = Arrays.binarySearch(ids, 0, size, id);
+                if(index >= 0){
+                    return;
+                }
+                index = -index - 1;
+            }
+            if(size == ids.length){
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        void remove(int id){
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if(index >= 0){
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int id){
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    private static final class TermMatch {
+        private final Postings postings;
+        private final double weight;
+
+        private TermMatch(Postings postings, double weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Hit {
+        private final int id;
+        private final double score;
+
+        private Hit(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
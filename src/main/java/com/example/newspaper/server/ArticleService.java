@@ -3,10 +3,23 @@ package com.example.newspaper.server;
 import com.example.newspaper.entity.Article;
 import com.example.newspaper.entity.Author;
 import com.example.newspaper.repository.ArticleRepository;
+import com.example.newspaper.text.TitleSimilarity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -18,65 +31,293 @@ public class ArticleService {
     private final int ASSESSMENT_DUPLICATION_YEAR_PUBLICATION = 5;
     private final int ASSESSMENT_DUPLICATION_EDITION_NUMBER = 15;
     private final int MIN_DUPLICATION_SCORE = 50;
+    private static final int IN_CLAUSE_SIZE = 1000;
     private final ArticleRepository articleRepository;
+    private final Timer searchTimer;
+    private final Counter articlesScanned;
+    private final Counter candidatesScored;
+    private final Counter matchesFound;
 
-    public ArticleService(ArticleRepository articleRepository) {
+    public ArticleService(ArticleRepository articleRepository, MeterRegistry meterRegistry) {
         this.articleRepository = articleRepository;
+        this.searchTimer = Timer.builder("newspaper.duplicates.search")
+                .description("Duplicate searches of single articles")
+                .register(meterRegistry);
+        this.articlesScanned = Counter.builder("newspaper.duplicates.articles.scanned")
+                .description("Articles whose duplicates were searched")
+                .register(meterRegistry);
+        this.candidatesScored = Counter.builder("newspaper.duplicates.candidates.scored")
+                .description("Candidate articles scored against a searched article")
+                .register(meterRegistry);
+        this.matchesFound = Counter.builder("newspaper.duplicates.matches")
+                .description("Candidates that scored as duplicates")
+                .register(meterRegistry);
     }
 
     public Collection<Article> listDuplicates(Article article){
-        Collection<Article> allArticles = articleRepository.findAll();
-        Collection<Article> duplicatesArticle = new ArrayList<>();
+        return new ArrayList<>(scoreDuplicates(article).keySet());
+    }
+
+    /**
+     * Scores the candidates of the article and returns the duplicates with their matching score, in id order.
+     */
+    Map<Article, Integer> scoreDuplicates(Article article){
+        return searchTimer.record(() -> {
+            articlesScanned.increment();
+            Set<Integer> candidateIds = findCandidateIds(article);
+            Map<Article, Integer> duplicatesArticle = new LinkedHashMap<>();
+            if(candidateIds.isEmpty()){
+                return duplicatesArticle;
+            }
+
+            Collection<Article> candidates = articleRepository.findDistinctByIdInOrderByIdAsc(candidateIds);
+            candidatesScored.increment(candidates.size());
+            for(Article checkArticle : candidates){
+                int matchingScore = duplicationScore(article, checkArticle);
+                if(isDuplicate(matchingScore)){
+                    duplicatesArticle.put(checkArticle, matchingScore);
+                }
+            }
+            matchesFound.increment(duplicatesArticle.size());
+
+            return duplicatesArticle;
+        });
+    }
 
-        for(Article checkArticle : allArticles){
-            boolean check = checkDuplicate(article, checkArticle);
-            if(check){
-                duplicatesArticle.add(checkArticle);
+    /**
+     * Scores a batch of saved articles in one pass, with each other and with the rest of the table.
+     * The candidates of the whole batch are looked up with a few IN queries, loaded once and grouped by
+     * their blocking keys; every article is scored against the candidates it shares a key with.
+     * Returns the duplicates of every article of the batch with their matching score, by article id.
+     */
+    Map<Integer, Map<Integer, Integer>> scoreDuplicates(List<Article> articles){
+        List<ArticleScoringFields> batch = new ArrayList<>(articles.size());
+        articles.forEach(article -> batch.add(ArticleScoringFields.of(article)));
+        articlesScanned.increment(batch.size());
+
+        Map<Object, List<ArticleScoringFields>> blocks = new HashMap<>();
+        for(ArticleScoringFields candidate : findCandidates(batch)){
+            for(Object key : blockingKeys(candidate)){
+                blocks.computeIfAbsent(key, k -> new ArrayList<>(2)).add(candidate);
             }
         }
 
-        return duplicatesArticle;
+        Map<Integer, Map<Integer, Integer>> duplicates = new HashMap<>();
+        for(ArticleScoringFields article : batch){
+            Map<Integer, Integer> articleDuplicates = new TreeMap<>();
+            Set<Integer> scored = new HashSet<>();
+            for(Object key : blockingKeys(article)){
+                for(ArticleScoringFields candidate : blocks.getOrDefault(key, List.of())){
+                    if(!scored.add(candidate.id())){
+                        continue;
+                    }
+                    int matchingScore = duplicationScore(article, candidate,
+                            sharesAuthor(article.authorIds(), candidate.authorIds()));
+                    if(isDuplicate(matchingScore)){
+                        articleDuplicates.put(candidate.id(), matchingScore);
+                    }
+                }
+            }
+            candidatesScored.increment(scored.size());
+            matchesFound.increment(articleDuplicates.size());
+            duplicates.put(article.id(), articleDuplicates);
+        }
+        return duplicates;
     }
 
-    private boolean checkDuplicate(Article originalArticle, Article checkArticle){
+    /**
+     * The candidates of {@link #findCandidateIds(Article)} for a whole batch; the identifier keys are matched in memory.
+     */
+    private List<ArticleScoringFields> findCandidates(List<ArticleScoringFields> batch){
+        Set<String> titlesEnglish = new HashSet<>();
+        Set<String> titlesGerman = new HashSet<>();
+        Set<Long> titleBands = new HashSet<>();
+        Set<IdentifierKey> identifierKeys = new HashSet<>();
+        Set<Integer> issnNumbers = new HashSet<>();
+        Set<Integer> authorIds = new HashSet<>();
+        for(ArticleScoringFields article : batch){
+            if(article.titleEnglish() != null){
+                titlesEnglish.add(article.titleEnglish());
+            }
+            if(article.titleGerman() != null){
+                titlesGerman.add(article.titleGerman());
+            }
+            titleBands.addAll(TitleSimilarity.bandKeys(article.titleEnglish(), article.titleGerman()));
+            if(article.issnNumber() != null && article.isbnNumber() != null && article.editionNumber() != null){
+                for(int authorId : article.authorIds()){
+                    identifierKeys.add(new IdentifierKey(article.issnNumber(), article.isbnNumber(),
+                            article.editionNumber(), authorId));
+                    issnNumbers.add(article.issnNumber());
+                    authorIds.add(authorId);
+                }
+            }
+        }
+
+        Set<Integer> candidateIds = new HashSet<>();
+        // rows written behind Hibernate's back have no bands until the backfill, they are found by their titles
+        for(List<String> titles : slices(titlesEnglish)){
+            candidateIds.addAll(articleRepository.findIdsByTitleEnglishIn(titles));
+        }
+        for(List<String> titles : slices(titlesGerman)){
+            candidateIds.addAll(articleRepository.findIdsByTitleGermanIn(titles));
+        }
+        for(List<Long> bands : slices(titleBands)){
+            candidateIds.addAll(articleRepository.findIdsByTitleBands(bands));
+        }
+        for(List<Integer> authors : slices(authorIds)){
+            for(Object[] row : articleRepository.findIdentifiersByAuthors(authors, issnNumbers)){
+                if(row[2] != null && row[3] != null && identifierKeys.contains(new IdentifierKey((Integer) row[1],
+                        (Integer) row[2], (Integer) row[3], (Integer) row[4]))){
+                    candidateIds.add((Integer) row[0]);
+                }
+            }
+        }
+
+        List<ArticleScoringFields> candidates = new ArrayList<>(candidateIds.size());
+        for(List<Integer> ids : slices(candidateIds)){
+            articleRepository.findDistinctByIdInOrderByIdAsc(ids)
+                    .forEach(candidate -> candidates.add(ArticleScoringFields.of(candidate)));
+        }
+        return candidates;
+    }
+
+    private static <T> List<List<T>> slices(Collection<T> values){
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> slices = new ArrayList<>();
+        for(int from = 0; from < list.size(); from += IN_CLAUSE_SIZE){
+            slices.add(list.subList(from, Math.min(list.size(), from + IN_CLAUSE_SIZE)));
+        }
+        return slices;
+    }
+
+    /**
+     * Collects the ids of articles that can possibly reach {@code MIN_DUPLICATION_SCORE} against the given one,
+     * using indexed lookups instead of scanning the whole table.
+     * Without a title match the remaining weights add up to 55, so the only way to reach the minimum
+     * is to match ISSN, ISBN, edition and at least one author together (the year alone can be missed).
+     * Every duplicate therefore has a similar title (exact title or shared LSH band)
+     * or shares that combined key.
+     */
+    Set<Integer> findCandidateIds(Article article){
+        Set<Integer> candidateIds = new HashSet<>(articleRepository.findIdsByTitleEnglish(article.getTitleEnglish()));
+        if(article.getTitleGerman() != null){
+            candidateIds.addAll(articleRepository.findIdsByTitleGerman(article.getTitleGerman()));
+        }
+        Set<Long> titleBands = TitleSimilarity.bandKeys(article.getTitleEnglish(), article.getTitleGerman());
+        if(!titleBands.isEmpty()){
+            candidateIds.addAll(articleRepository.findIdsByTitleBands(titleBands));
+        }
+
+        Set<Integer> authorIds = article.getAuthors().stream()
+                .map(Author::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if(!authorIds.isEmpty()){
+            candidateIds.addAll(articleRepository.findIdsByIdentifiersAndAuthors(article.getIssnNumber(),
+                    article.getIsbnNumber(), article.getEditionNumber(), authorIds));
+        }
+
+        return candidateIds;
+    }
+
+    /**
+     * The same blocking keys as {@link #findCandidateIds(Article)}, as values for grouping articles in memory.
+     * Exact title matches always share their LSH bands, so the bands cover them here.
+     */
+    Set<Object> blockingKeys(ArticleScoringFields article){
+        Set<Object> keys = new HashSet<>(TitleSimilarity.bandKeys(article.titleEnglish(), article.titleGerman()));
+
+        if(article.issnNumber() != null && article.isbnNumber() != null && article.editionNumber() != null){
+            for(int authorId : article.authorIds()){
+                keys.add(new IdentifierKey(article.issnNumber(), article.isbnNumber(),
+                        article.editionNumber(), authorId));
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * The keys an oversized block is split by. With a title match the author and the year add up to 20 more,
+     * short of the 30 still missing, so every duplicate pair of a title block also shares its ISSN, its ISBN or
+     * its edition; scoring the pairs of the block that share one of them scores all of its duplicates.
+     */
+    Set<Object> subBlockingKeys(ArticleScoringFields article){
+        Set<Object> keys = new HashSet<>();
+        if(article.issnNumber() != null){
+            keys.add(new SubBlockKey(SubBlockKey.ISSN, article.issnNumber()));
+        }
+        if(article.isbnNumber() != null){
+            keys.add(new SubBlockKey(SubBlockKey.ISBN, article.isbnNumber()));
+        }
+        if(article.editionNumber() != null){
+            keys.add(new SubBlockKey(SubBlockKey.EDITION, article.editionNumber()));
+        }
+        return keys;
+    }
+
+    boolean checkDuplicate(Article originalArticle, Article checkArticle){
+        return isDuplicate(duplicationScore(originalArticle, checkArticle));
+    }
+
+    boolean checkDuplicate(ArticleScoringFields originalArticle, ArticleScoringFields checkArticle){
+        return isDuplicate(duplicationScore(originalArticle, checkArticle,
+                sharesAuthor(originalArticle.authorIds(), checkArticle.authorIds())));
+    }
+
+    boolean isDuplicate(int matchingScore){
+        return matchingScore >= MIN_DUPLICATION_SCORE;
+    }
+
+    int duplicationScore(Article originalArticle, Article checkArticle){
+        return duplicationScore(ArticleScoringFields.of(originalArticle), ArticleScoringFields.of(checkArticle),
+                checkAuthor(originalArticle.getAuthors(), checkArticle.getAuthors()));
+    }
+
+    private int duplicationScore(ArticleScoringFields originalArticle, ArticleScoringFields checkArticle,
+                                 boolean authorMatches){
         int matchingScore = 0;
 
-        if(originalArticle.getTitleEnglish().equals(checkArticle.getTitleEnglish())){
+        if(TitleSimilarity.isSimilar(originalArticle.titleEnglish(), checkArticle.titleEnglish())){
             matchingScore += ASSESSMENT_DUPLICATION_TITLE;
         }
-        else if(originalArticle.getTitleEnglish().equals(checkArticle.getTitleEnglish())){
+        else if(TitleSimilarity.isSimilar(originalArticle.titleGerman(), checkArticle.titleGerman())){
             matchingScore += ASSESSMENT_DUPLICATION_TITLE;
         }
 
-        if(originalArticle.getIssnNumber().equals(checkArticle.getIssnNumber())){
+        if(matches(originalArticle.issnNumber(), checkArticle.issnNumber())){
             matchingScore += ASSESSMENT_DUPLICATION_ISSN_NUMBER;
         }
 
 
-        if(originalArticle.getIsbnNumber().equals(checkArticle.getIsbnNumber())){
+        if(matches(originalArticle.isbnNumber(), checkArticle.isbnNumber())){
             matchingScore += ASSESSMENT_DUPLICATION_ISBN_NUMBER;
         }
 
 
-        if(checkAuthor(originalArticle.getAuthors(), checkArticle.getAuthors())){
+        if(authorMatches){
             matchingScore += ASSESSMENT_DUPLICATION_AUTHOR;
         }
 
 
-        if(originalArticle.getYearPublication().equals(checkArticle.getYearPublication())){
+        if(matches(originalArticle.yearPublication(), checkArticle.yearPublication())){
             matchingScore += ASSESSMENT_DUPLICATION_YEAR_PUBLICATION;
         }
 
 
-        if(originalArticle.getEditionNumber().equals(checkArticle.getEditionNumber())){
+        if(matches(originalArticle.editionNumber(), checkArticle.editionNumber())){
             matchingScore += ASSESSMENT_DUPLICATION_EDITION_NUMBER;
         }
 
 
-        return matchingScore >= MIN_DUPLICATION_SCORE;
+        return matchingScore;
     }
 
-    private boolean checkAuthor(Collection<Author> originalAuthors, Collection<Author> checkAuthors){
+    private boolean matches(Integer originalValue, Integer checkValue){
+        return originalValue != null && originalValue.equals(checkValue);
+    }
+
+    boolean checkAuthor(Collection<Author> originalAuthors, Collection<Author> checkAuthors){
 
         for(Author originalAuthor : originalAuthors){
             for(Author checkAuthor : checkAuthors){
@@ -88,4 +329,25 @@ public class ArticleService {
 
         return false;
     }
+
+    private boolean sharesAuthor(int[] originalAuthorIds, int[] checkAuthorIds){
+        for(int originalAuthorId : originalAuthorIds){
+            for(int checkAuthorId : checkAuthorIds){
+                if(originalAuthorId == checkAuthorId){
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private record IdentifierKey(int issnNumber, int isbnNumber, int editionNumber, int authorId) {
+    }
+
+    private record SubBlockKey(int field, int value) {
+        static final int ISSN = 0;
+        static final int ISBN = 1;
+        static final int EDITION = 2;
+    }
 }
@@ -0,0 +1,97 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Author;
+import com.example.newspaper.repository.AuthorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the normalized name of authors stored before it existed (or inserted bypassing the entity).
+ * Authors whose name normalizes to the name of another author are duplicates: their articles are
+ * moved to that author and the duplicate is deleted, so the normalized names stay unique.
+ */
+@Component
+public class AuthorNameBackfill {
+    private static final Logger log = LoggerFactory.getLogger(AuthorNameBackfill.class);
+    private static final int CHUNK_SIZE = 500;
+
+    private final AuthorRepository authorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ArticleCountService articleCountService;
+
+    public AuthorNameBackfill(AuthorRepository authorRepository, TransactionTemplate transactionTemplate,
+                              ArticleCountService articleCountService) {
+        this.authorRepository = authorRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.articleCountService = articleCountService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill(){
+        int lastId = 0;
+        int updated = 0;
+        int merged = 0;
+        while(true){
+            final int afterId = lastId;
+            int[] counts = new int[2];
+            Integer chunkLastId = transactionTemplate.execute(status -> {
+                List<Author> authors = authorRepository.findWithoutNormalizedName(afterId, PageRequest.of(0, CHUNK_SIZE));
+                if(authors.isEmpty()){
+                    return null;
+                }
+                List<String> names = authors.stream()
+                        .map(author -> Author.normalizeName(author.getFullName()))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                Map<String, Author> authorsByName = new HashMap<>();
+                authorRepository.findByNormalizedNameIn(names)
+                        .forEach(author -> authorsByName.put(author.getNormalizedName(), author));
+
+                for(Author author : authors){
+                    String name = Author.normalizeName(author.getFullName());
+                    if(name == null){
+                        // a blank name is never matched, it keeps a null normalized name
+                        continue;
+                    }
+                    Author original = authorsByName.get(name);
+                    if(original == null){
+                        author.refreshNormalizedName();
+                        authorsByName.put(author.getNormalizedName(), author);
+                        counts[0]++;
+                    }
+                    else {
+                        authorRepository.moveArticleLinks(author.getId(), original.getId());
+                        authorRepository.deleteArticleLinks(author.getId());
+                        authorRepository.delete(author);
+                        counts[1]++;
+                    }
+                }
+                return authors.get(authors.size() - 1).getId();
+            });
+            if(chunkLastId == null){
+                break;
+            }
+            updated += counts[0];
+            merged += counts[1];
+            lastId = chunkLastId;
+        }
+        if(merged > 0){
+            // the articles were moved between the authors by SQL, which the counters do not follow
+            articleCountService.rebuild();
+        }
+        if(updated > 0 || merged > 0){
+            log.info("Normalized the names of {} authors and merged {} duplicate authors", updated, merged);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.newspaper.server;
+
+/**
+ * An author could not be written because another author with the same normalized name was inserted
+ * concurrently, after the name was looked up; the unique index on the normalized name failed the write.
+ * Sent again, the write finds the other author.
+ */
+public class AuthorNameConflictException extends RuntimeException {
+
+    public AuthorNameConflictException(String normalizedNames, Throwable cause) {
+        super("Another author was written concurrently with the name " + normalizedNames, cause);
+    }
+}
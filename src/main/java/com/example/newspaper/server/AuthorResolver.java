@@ -0,0 +1,155 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Author;
+import com.example.newspaper.repository.AuthorRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the authors of articles about to be written to stored authors, so an author posted again
+ * by name is reused instead of inserted once more. Authors with an id must exist. Authors without one
+ * are matched by their normalized name, first through a bounded cache of names to ids, then in the
+ * database, and are only created when the name is new.
+ * Only authors read back from the database are cached, so a rolled back insert never leaves an id behind;
+ * cached ids are checked against the loaded author, which drops entries of renamed or deleted authors.
+ * New authors are inserted right away: if a concurrent write inserted the same name after the lookup,
+ * the unique index on the normalized name fails the insert here and it is rethrown as an
+ * {@link AuthorNameConflictException}. The lookup is not retried: the failed flush leaves the session unusable,
+ * so the write is answered with 409(conflict) and finds the author when it is sent again.
+ */
+@Service
+public class AuthorResolver {
+    private static final String NAME_INDEX = "idx_author_normalized_name";
+
+    private final AuthorRepository authorRepository;
+    private final Cache<String, Integer> authorIdsByName;
+
+    public AuthorResolver(AuthorRepository authorRepository,
+                          @Value("${newspaper.authors.resolution-cache-size:10000}") long cacheSize) {
+        this.authorRepository = authorRepository;
+        this.authorIdsByName = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * Replaces the authors of every article with stored ones, or with one new author per new name.
+     * Has to run in the transaction that writes the articles.
+     *
+     * @throws IllegalArgumentException if an author id does not exist
+     * @throws AuthorNameConflictException if a new name was inserted concurrently
+     */
+    public void resolve(Collection<Article> articles){
+        Set<Integer> authorIds = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for(Article article : articles){
+            for(Author author : article.getAuthors()){
+                if(author.getId() != null){
+                    authorIds.add(author.getId());
+                }
+                else if(author.getNormalizedName() != null){
+                    names.add(author.getNormalizedName());
+                }
+            }
+        }
+
+        Map<String, Integer> cachedIds = authorIdsByName.getAllPresent(names);
+        Set<Integer> idsToLoad = new HashSet<>(authorIds);
+        idsToLoad.addAll(cachedIds.values());
+        Map<Integer, Author> authorsById = new HashMap<>();
+        for(Author author : authorRepository.findAllById(idsToLoad)){
+            authorsById.put(author.getId(), author);
+        }
+        for(Integer id : authorIds){
+            if(!authorsById.containsKey(id)){
+                throw new IllegalArgumentException("Unknown author id " + id);
+            }
+        }
+
+        Map<String, Author> authorsByName = new HashMap<>();
+        for(Map.Entry<String, Integer> cached : cachedIds.entrySet()){
+            Author author = authorsById.get(cached.getValue());
+            if(author != null && cached.getKey().equals(author.getNormalizedName())){
+                authorsByName.put(cached.getKey(), author);
+            }
+            else {
+                authorIdsByName.invalidate(cached.getKey());
+            }
+        }
+        Set<String> uncachedNames = new HashSet<>(names);
+        uncachedNames.removeAll(authorsByName.keySet());
+        if(!uncachedNames.isEmpty()){
+            for(Author author : authorRepository.findByNormalizedNameIn(uncachedNames)){
+                authorsByName.put(author.getNormalizedName(), author);
+                authorIdsByName.put(author.getNormalizedName(), author.getId());
+            }
+        }
+
+        List<Author> created = new ArrayList<>();
+        for(Article article : articles){
+            Set<Author> resolved = new HashSet<>();
+            for(Author author : article.getAuthors()){
+                if(author.getId() != null){
+                    resolved.add(authorsById.get(author.getId()));
+                }
+                else if(author.getNormalizedName() == null){
+                    resolved.add(author);
+                }
+                else {
+                    // a new name is created once, even if several articles of the batch carry it
+                    resolved.add(authorsByName.computeIfAbsent(author.getNormalizedName(), name -> {
+                        created.add(author);
+                        return author;
+                    }));
+                }
+            }
+            article.setAuthors(resolved);
+        }
+        if(!created.isEmpty()){
+            try {
+                authorRepository.saveAllAndFlush(created);
+            } catch (DataIntegrityViolationException e) {
+                throw nameConflict(e, created.stream().map(Author::getNormalizedName).toList().toString());
+            }
+        }
+    }
+
+    /**
+     * Saves an author written on its own, which is checked for a taken name before.
+     *
+     * @throws AuthorNameConflictException if an author with the same name was written concurrently
+     */
+    public Author save(Author author){
+        try {
+            return authorRepository.saveAndFlush(author);
+        } catch (DataIntegrityViolationException e) {
+            throw nameConflict(e, author.getNormalizedName());
+        }
+    }
+
+    /**
+     * Returns the conflict if the unique index on the normalized name failed the write, else the failure itself.
+     */
+    private static RuntimeException nameConflict(DataIntegrityViolationException e, String normalizedName){
+        for(Throwable cause = e; cause != null; cause = cause.getCause()){
+            if(cause instanceof ConstraintViolationException constraintViolation
+                    && constraintViolation.getConstraintName() != null
+                    && constraintViolation.getConstraintName().toLowerCase(Locale.ROOT).contains(NAME_INDEX)){
+                return new AuthorNameConflictException(normalizedName, e);
+            }
+        }
+        return e;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Author;
+import com.example.newspaper.entity.ChangeEvent.EntityType;
+import com.example.newspaper.entity.ChangeEvent.Operation;
+import com.example.newspaper.entity.Site;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the outbox of the change feed: every article, author and site that is inserted, updated or deleted
+ * becomes a change event, in the transaction of the change, whatever wrote it (the create, update and delete
+ * endpoints, the import, cascades). The events of a transaction are inserted just before the commit
+ * (see {@link TransactionBufferingListener}); a rolled back transaction leaves no event. Bulk statements
+ * and SQL bypass the entities and leave no event either.
+ */
+@Component
+public class ChangeEventListener extends TransactionBufferingListener<List<Object[]>> {
+    private static final Map<Class<?>, EntityType> ENTITY_TYPES = Map.of(
+            Article.class, EntityType.ARTICLE,
+            Author.class, EntityType.AUTHOR,
+            Site.class, EntityType.SITE);
+    private static final String INSERT = "insert into change_event (entity_type, entity_id, operation, entity_version, occurred_at)"
+            + " values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // lazy, the data source is only needed once the persistence unit this listener is part of is running
+    public ChangeEventListener(@Lazy JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), Operation.CREATED, event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), Operation.UPDATED, event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), Operation.DELETED, null);
+    }
+
+    private void record(EventSource session, EntityPersister persister, Object id, Operation operation, Object entity){
+        EntityType entityType = ENTITY_TYPES.get(persister.getMappedClass());
+        if(entityType == null){
+            return;
+        }
+        Object version = entity == null ? null : persister.getVersion(entity);
+        pending(session).add(new Object[]{entityType.name(), id, operation.name(), version, Timestamp.from(Instant.now())});
+    }
+
+    @Override
+    protected List<Object[]> newPending() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    protected void beforeCompletion(List<Object[]> events) {
+        jdbcTemplate.batchUpdate(INSERT, events);
+    }
+}
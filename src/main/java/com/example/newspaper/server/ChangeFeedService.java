@@ -0,0 +1,284 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.ChangeEvent;
+import com.example.newspaper.repository.ChangeEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The change feed of articles, authors and sites, streamed as server-sent events whose ids are the positions
+ * of the events. The outbox is polled: committed events get the next positions, in the order they became visible,
+ * and are sent to the live subscribers. A subscriber that connects with a position (the Last-Event-ID of its
+ * last connection) is first sent the events after it from the table, then joins the live ones.
+ * Events older than the retention are deleted; a subscriber whose position is older than the oldest event left
+ * has missed events and has to read everything again. The live events are handed to a bounded queue per
+ * subscriber and sent from its own thread, so a slow client holds up neither the polling nor the others;
+ * a subscriber whose queue is full has fallen behind and is dropped, to resume from its Last-Event-ID.
+ * Not lazy: the polling runs from the start, with lazy initialization as well.
+ */
+@Service
+@Lazy(false)
+public class ChangeFeedService {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+    private static final int PAGE_SIZE = 500;
+    private static final String EVENT_NAME = "change";
+
+    private final ChangeEventRepository changeEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration timeout;
+    private final Duration retention;
+    private final int queueCapacity;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService sendExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed-send");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // guards the hand-over of a subscriber from its replay to the live events
+    private final Object broadcastLock = new Object();
+    private long broadcastPosition = -1;
+
+    public ChangeFeedService(ChangeEventRepository changeEventRepository, PlatformTransactionManager transactionManager,
+                             @Value("${newspaper.change-feed.timeout:30m}") Duration timeout,
+                             @Value("${newspaper.change-feed.retention:7d}") Duration retention,
+                             @Value("${newspaper.change-feed.queue-capacity:1000}") int queueCapacity) {
+        this.changeEventRepository = changeEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeout = timeout;
+        this.retention = retention;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Returns whether events after the position were deleted already, so following from it would skip them.
+     */
+    public boolean isExpired(long position){
+        Optional<Long> oldest = changeEventRepository.findMinPosition();
+        return oldest.isPresent() && position < oldest.get() - 1;
+    }
+
+    /**
+     * Streams the events after the position: the stored ones first, then the live ones.
+     */
+    public SseEmitter subscribe(long position){
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, position);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        sendExecutor.execute(() -> replay(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Gives the committed events their positions and hands them to the live subscribers, which send them
+     * on their own.
+     */
+    @Scheduled(initialDelayString = "${newspaper.change-feed.poll-interval:250}",
+            fixedDelayString = "${newspaper.change-feed.poll-interval:250}")
+    public void publish(){
+        transactionTemplate.executeWithoutResult(status -> assignPositions());
+        synchronized(broadcastLock){
+            long position = broadcastPosition();
+            List<ChangeEvent> events;
+            do {
+                events = changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(position, PageRequest.of(0, PAGE_SIZE));
+                for(Subscriber subscriber : subscribers){
+                    if(subscriber.live){
+                        subscriber.enqueue(events);
+                    }
+                }
+                if(!events.isEmpty()){
+                    position = events.get(events.size() - 1).getPosition();
+                }
+            } while(events.size() == PAGE_SIZE);
+            broadcastPosition = position;
+        }
+    }
+
+    /**
+     * Deletes the events older than the retention, except the last of them: the oldest position left tells
+     * which subscribers have missed events.
+     */
+    @Scheduled(fixedDelayString = "${newspaper.change-feed.purge-interval:3600000}")
+    public void purge(){
+        purgeBefore(Instant.now().minus(retention));
+    }
+
+    public void purgeBefore(Instant before){
+        Integer deleted = transactionTemplate.execute(status -> changeEventRepository.findLastPositionBefore(before)
+                .map(changeEventRepository::deleteBeforePosition)
+                .orElse(0));
+        if(deleted != null && deleted > 0){
+            log.info("Deleted {} change events older than {}", deleted, before);
+        }
+    }
+
+    @PreDestroy
+    void shutdown(){
+        sendExecutor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void assignPositions(){
+        List<ChangeEvent> events = changeEventRepository.findByPositionIsNullOrderByIdAsc(PageRequest.of(0, PAGE_SIZE));
+        if(events.isEmpty()){
+            return;
+        }
+        long position = changeEventRepository.findMaxPosition().orElse(0L);
+        for(ChangeEvent event : events){
+            event.setPosition(++position);
+        }
+    }
+
+    private long broadcastPosition(){
+        if(broadcastPosition < 0){
+            broadcastPosition = changeEventRepository.findMaxPosition().orElse(0L);
+        }
+        return broadcastPosition;
+    }
+
+    private void replay(Subscriber subscriber){
+        try {
+            sendStored(subscriber);
+            // the events that were broadcast meanwhile are queued; the broadcasts wait, so none is missed or
+            // queued twice
+            synchronized(broadcastLock){
+                List<ChangeEvent> events;
+                long position = subscriber.position;
+                do {
+                    events = changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(position,
+                            PageRequest.of(0, PAGE_SIZE));
+                    subscriber.enqueue(events);
+                    if(!events.isEmpty()){
+                        position = events.get(events.size() - 1).getPosition();
+                    }
+                } while(events.size() == PAGE_SIZE);
+                subscriber.live = true;
+            }
+            subscriber.schedule();
+        } catch (IOException | RuntimeException e) {
+            subscriber.drop(e);
+        }
+    }
+
+    private void sendStored(Subscriber subscriber) throws IOException {
+        List<ChangeEvent> events;
+        do {
+            events = changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(subscriber.position,
+                    PageRequest.of(0, PAGE_SIZE));
+            subscriber.send(events);
+        } while(events.size() == PAGE_SIZE);
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<ChangeEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        // set while a thread of the send executor sends the queued events
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long position;
+        private volatile boolean live;
+        private volatile boolean fallenBehind;
+
+        Subscriber(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        /**
+         * Sends the events after the position of the subscriber, the others it has been sent already.
+         */
+        void send(List<ChangeEvent> events) throws IOException {
+            for(ChangeEvent event : events){
+                send(event);
+            }
+        }
+
+        private void send(ChangeEvent event) throws IOException {
+            if(event.getPosition() > position){
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.getPosition()))
+                        .name(EVENT_NAME)
+                        .data(event, MediaType.APPLICATION_JSON));
+                position = event.getPosition();
+            }
+        }
+
+        /**
+         * Queues the events without waiting. When the queue is full the subscriber stops getting events and is
+         * dropped by its sending thread; the emitter may be busy sending, so it is not completed here.
+         */
+        void enqueue(List<ChangeEvent> events){
+            for(ChangeEvent event : events){
+                if(fallenBehind){
+                    return;
+                }
+                if(!queue.offer(event)){
+                    fallenBehind = true;
+                    subscribers.remove(this);
+                    queue.clear();
+                }
+            }
+            if(live){
+                schedule();
+            }
+        }
+
+        void schedule(){
+            if(sending.compareAndSet(false, true)){
+                sendExecutor.execute(this::sendQueued);
+            }
+        }
+
+        private void sendQueued(){
+            try {
+                while(true){
+                    if(fallenBehind){
+                        drop(new IllegalStateException("Fell behind the change feed by " + queueCapacity + " events"));
+                        return;
+                    }
+                    ChangeEvent event = queue.poll();
+                    if(event != null){
+                        send(event);
+                        continue;
+                    }
+                    sending.set(false);
+                    // events queued after the poll, their schedule found this thread still sending
+                    if((queue.isEmpty() && !fallenBehind) || !sending.compareAndSet(false, true)){
+                        return;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                drop(e);
+            }
+        }
+
+        void drop(Exception e){
+            subscribers.remove(this);
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.newspaper.server;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * State of one duplicate search for a single article, exposed as the job status.
+ */
+public class DuplicateCheckJob {
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Integer articleId;
+    private final Instant createdAt = Instant.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile List<Integer> duplicates = List.of();
+
+    public DuplicateCheckJob(Integer articleId) {
+        this.articleId = articleId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Integer getArticleId() {
+        return articleId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * The ids of the duplicates of the article (the article itself included), in id order.
+     */
+    public List<Integer> getDuplicates() {
+        return duplicates;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void start() {
+        this.startedAt = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    void complete(List<Integer> duplicates) {
+        this.duplicates = duplicates;
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.repository.ArticleRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the duplicate search of single articles off the servlet threads.
+ * Jobs run on a fixed pool with a bounded queue; when both are full a job is refused instead of queued,
+ * so a burst of requests cannot pile up work (or hold request threads) without limit.
+ * Queued and running jobs are kept in a map, which the bounded queue keeps bounded as well; they are never evicted.
+ * Finished jobs move to a cache that keeps them for the retention period so their result can be polled;
+ * it holds at most max-finished-jobs of them, so a pool that finishes jobs faster than that drops results
+ * before their retention ends.
+ */
+@Service
+public class DuplicateCheckService {
+    private static final Logger log = LoggerFactory.getLogger(DuplicateCheckService.class);
+
+    private final ArticleRepository articleRepository;
+    private final DuplicateGraphService duplicateGraphService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, DuplicateCheckJob> pendingJobs = new ConcurrentHashMap<>();
+    private final Cache<String, DuplicateCheckJob> finishedJobs;
+
+    public DuplicateCheckService(ArticleRepository articleRepository, DuplicateGraphService duplicateGraphService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${newspaper.duplicates.check.threads:0}") int threads,
+                                 @Value("${newspaper.duplicates.check.queue-capacity:100}") int queueCapacity,
+                                 @Value("${newspaper.duplicates.check.retention:10m}") Duration retention,
+                                 @Value("${newspaper.duplicates.check.max-finished-jobs:10000}") long maxFinishedJobs) {
+        this.articleRepository = articleRepository;
+        this.duplicateGraphService = duplicateGraphService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "duplicate-check-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.finishedJobs = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .maximumSize(maxFinishedJobs)
+                .build();
+    }
+
+    /**
+     * Queues a duplicate search for the article, or returns empty if the executor is saturated.
+     */
+    public Optional<DuplicateCheckJob> submit(Integer articleId){
+        DuplicateCheckJob job = new DuplicateCheckJob(articleId);
+        pendingJobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            pendingJobs.remove(job.getId());
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    public Optional<DuplicateCheckJob> findJob(String id){
+        DuplicateCheckJob job = pendingJobs.get(id);
+        return Optional.ofNullable(job != null ? job : finishedJobs.getIfPresent(id));
+    }
+
+    @PreDestroy
+    void shutdown(){
+        executor.shutdownNow();
+    }
+
+    private void run(DuplicateCheckJob job){
+        job.start();
+        try {
+            List<Integer> duplicates = transactionTemplate.execute(status -> {
+                Optional<Article> article = articleRepository.findById(job.getArticleId());
+                if(article.isEmpty()){
+                    return null;
+                }
+                return duplicateGraphService.findDuplicates(article.get()).stream()
+                        .map(Article::getId)
+                        .sorted()
+                        .collect(Collectors.toList());
+            });
+            if(duplicates == null){
+                job.fail("Article " + job.getArticleId() + " not found");
+            }
+            else {
+                job.complete(duplicates);
+            }
+        } catch (Exception e) {
+            log.error("Duplicate check {} of article {} failed", job.getId(), job.getArticleId(), e);
+            job.fail(e.getMessage());
+        }
+        // cached before it leaves the pending jobs, so it can always be found
+        finishedJobs.put(job.getId(), job);
+        pendingJobs.remove(job.getId());
+    }
+}
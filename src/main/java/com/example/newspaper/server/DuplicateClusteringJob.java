@@ -0,0 +1,121 @@
+package com.example.newspaper.server;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one corpus-wide duplicate clustering run, exposed as the job status.
+ */
+public class DuplicateClusteringJob {
+    public enum Status {
+        QUEUED, LOADING, SCORING, CLUSTERING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong articlesScanned = new AtomicLong();
+    private final AtomicLong blocks = new AtomicLong();
+    private final AtomicLong oversizedBlocks = new AtomicLong();
+    private final AtomicLong pairsScored = new AtomicLong();
+    private final AtomicLong duplicatePairs = new AtomicLong();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile List<List<Integer>> clusters = List.of();
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getArticlesScanned() {
+        return articlesScanned.get();
+    }
+
+    void addArticlesScanned(long count) {
+        articlesScanned.addAndGet(count);
+    }
+
+    public long getBlocks() {
+        return blocks.get();
+    }
+
+    void setBlocks(long count) {
+        blocks.set(count);
+    }
+
+    /**
+     * Blocks that still had more articles than the maximum block size after splitting them, their pairs are not scored.
+     */
+    public long getOversizedBlocks() {
+        return oversizedBlocks.get();
+    }
+
+    void addOversizedBlock() {
+        oversizedBlocks.incrementAndGet();
+    }
+
+    /**
+     * True if blocks were skipped: the run completed, but the clusters may miss duplicates.
+     */
+    public boolean isPartial() {
+        return oversizedBlocks.get() > 0;
+    }
+
+    public long getPairsScored() {
+        return pairsScored.get();
+    }
+
+    void addPairScored() {
+        pairsScored.incrementAndGet();
+    }
+
+    public long getDuplicatePairs() {
+        return duplicatePairs.get();
+    }
+
+    void addDuplicatePair() {
+        duplicatePairs.incrementAndGet();
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public List<List<Integer>> getClusters() {
+        return clusters;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void complete(List<List<Integer>> clusters) {
+        this.clusters = clusters;
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void fail(Throwable cause) {
+        this.error = cause.getMessage();
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.repository.ArticleRepository;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Finds every duplicate cluster of the article table in one pass.
+ * Articles are streamed in id order in chunks, kept as their {@link ArticleScoringFields} only,
+ * and grouped by the blocking keys of {@link ArticleService},
+ * the pairs inside each block are scored on a fork-join pool with {@link ArticleService#checkDuplicate},
+ * and the matching pairs are merged into clusters with union-find.
+ * Two articles can share several blocks; their pair is only scored in the first block they share, so no
+ * set of the scored pairs is kept. A block larger than the maximum block size (a common title or identifier) is
+ * split by ISSN, ISBN and edition ({@link ArticleService#subBlockingKeys}) and its parts are scored instead.
+ * A part that is still too large is skipped: the job counts it and marks its result as partial, the clusters
+ * may then miss duplicates.
+ */
+@Service
+public class DuplicateClusteringService {
+    private static final Logger log = LoggerFactory.getLogger(DuplicateClusteringService.class);
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_RETAINED_JOBS = 10;
+
+    private final ArticleRepository articleRepository;
+    private final ArticleService articleService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int parallelism;
+    private final int maxBlockSize;
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "duplicate-clustering");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, DuplicateClusteringJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DuplicateClusteringJob> eldest) {
+            return size() > MAX_RETAINED_JOBS && eldest.getValue().isFinished();
+        }
+    };
+    private DuplicateClusteringJob currentJob;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public DuplicateClusteringService(ArticleRepository articleRepository, ArticleService articleService,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${newspaper.duplicates.clustering.parallelism:0}") int parallelism,
+                                      @Value("${newspaper.duplicates.clustering.max-block-size:1000}") int maxBlockSize) {
+        this.articleRepository = articleRepository;
+        this.articleService = articleService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxBlockSize = maxBlockSize;
+    }
+
+    /**
+     * Starts a new clustering run, or returns empty if one is still running.
+     */
+    public synchronized Optional<DuplicateClusteringJob> start(){
+        if(currentJob != null && !currentJob.isFinished()){
+            return Optional.empty();
+        }
+        DuplicateClusteringJob job = new DuplicateClusteringJob();
+        jobs.put(job.getId(), job);
+        currentJob = job;
+        jobExecutor.execute(() -> run(job));
+        return Optional.of(job);
+    }
+
+    public synchronized Optional<DuplicateClusteringJob> findJob(String id){
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    @PreDestroy
+    void shutdown(){
+        jobExecutor.shutdownNow();
+    }
+
+    private void run(DuplicateClusteringJob job){
+        try {
+            List<ArticleScoringFields> articles = new ArrayList<>();
+            Map<Object, List<Integer>> blocks = new HashMap<>();
+            job.setStatus(DuplicateClusteringJob.Status.LOADING);
+            load(job, articles, blocks);
+
+            job.setStatus(DuplicateClusteringJob.Status.SCORING);
+            List<int[]> candidateBlocks = new ArrayList<>();
+            for(List<Integer> block : blocks.values()){
+                if(block.size() <= maxBlockSize){
+                    addCandidateBlock(candidateBlocks, block);
+                    continue;
+                }
+                for(List<Integer> subBlock : subBlocks(articles, block).values()){
+                    if(subBlock.size() > maxBlockSize){
+                        job.addOversizedBlock();
+                    }
+                    else {
+                        addCandidateBlock(candidateBlocks, subBlock);
+                    }
+                }
+            }
+            blocks.clear();
+            job.setBlocks(candidateBlocks.size());
+            Collection<int[]> duplicatePairs = score(job, articles, candidateBlocks);
+
+            job.setStatus(DuplicateClusteringJob.Status.CLUSTERING);
+            job.complete(cluster(articles, duplicatePairs));
+            log.info("Duplicate clustering {} finished: {} articles, {} pairs scored, {} oversized blocks skipped, {} clusters",
+                    job.getId(), job.getArticlesScanned(), job.getPairsScored(), job.getOversizedBlocks(),
+                    job.getClusters().size());
+            if(job.isPartial()){
+                log.warn("Duplicate clustering {} is partial, {} blocks were too large to score even when split",
+                        job.getId(), job.getOversizedBlocks());
+            }
+        } catch (Exception e) {
+            log.error("Duplicate clustering {} failed", job.getId(), e);
+            job.fail(e);
+        }
+    }
+
+    private void load(DuplicateClusteringJob job, List<ArticleScoringFields> articles, Map<Object, List<Integer>> blocks){
+        int lastId = 0;
+        while(true){
+            final int afterId = lastId;
+            List<ArticleScoringFields> chunk = readOnlyTransaction.execute(status -> {
+                // The scan reads from the second-level cache but does not fill it
+                entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+                List<Article> page = articleRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, CHUNK_SIZE));
+                // Only the scored fields are kept for the run, the entities of the chunk go with its
+                // persistence context. The authors are loaded (in batches) for their ids.
+                List<ArticleScoringFields> fields = new ArrayList<>(page.size());
+                page.forEach(article -> fields.add(ArticleScoringFields.of(article)));
+                return fields;
+            });
+            if(chunk == null || chunk.isEmpty()){
+                return;
+            }
+
+            for(ArticleScoringFields article : chunk){
+                int index = articles.size();
+                articles.add(article);
+                for(Object key : articleService.blockingKeys(article)){
+                    blocks.computeIfAbsent(key, k -> new ArrayList<>(2)).add(index);
+                }
+            }
+            job.addArticlesScanned(chunk.size());
+            lastId = chunk.get(chunk.size() - 1).id();
+        }
+    }
+
+    private Map<Object, List<Integer>> subBlocks(List<ArticleScoringFields> articles, List<Integer> block){
+        Map<Object, List<Integer>> subBlocks = new HashMap<>();
+        for(int article : block){
+            for(Object key : articleService.subBlockingKeys(articles.get(article))){
+                subBlocks.computeIfAbsent(key, k -> new ArrayList<>(2)).add(article);
+            }
+        }
+        return subBlocks;
+    }
+
+    private static void addCandidateBlock(List<int[]> candidateBlocks, List<Integer> block){
+        if(block.size() > 1){
+            candidateBlocks.add(block.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    private Collection<int[]> score(DuplicateClusteringJob job, List<ArticleScoringFields> articles,
+                                     List<int[]> candidateBlocks) throws Exception {
+        int[][] articleBlocks = articleBlocks(articles.size(), candidateBlocks);
+        Collection<int[]> duplicatePairs = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, candidateBlocks.size()).parallel().forEach(blockIndex -> {
+                int[] block = candidateBlocks.get(blockIndex);
+                for(int i = 0; i < block.length; i++){
+                    for(int j = i + 1; j < block.length; j++){
+                        int first = block[i];
+                        int second = block[j];
+                        if(firstSharedBlock(articleBlocks[first], articleBlocks[second]) != blockIndex){
+                            continue;
+                        }
+                        job.addPairScored();
+                        if(articleService.checkDuplicate(articles.get(first), articles.get(second))){
+                            job.addDuplicatePair();
+                            duplicatePairs.add(new int[]{first, second});
+                        }
+                    }
+                }
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+        return duplicatePairs;
+    }
+
+    /**
+     * The candidate blocks of every article, in ascending order.
+     */
+    private static int[][] articleBlocks(int articleCount, List<int[]> candidateBlocks){
+        int[] counts = new int[articleCount];
+        for(int[] block : candidateBlocks){
+            for(int article : block){
+                counts[article]++;
+            }
+        }
+        int[][] articleBlocks = new int[articleCount][];
+        for(int article = 0; article < articleCount; article++){
+            articleBlocks[article] = new int[counts[article]];
+            counts[article] = 0;
+        }
+        for(int blockIndex = 0; blockIndex < candidateBlocks.size(); blockIndex++){
+            for(int article : candidateBlocks.get(blockIndex)){
+                articleBlocks[article][counts[article]++] = blockIndex;
+            }
+        }
+        return articleBlocks;
+    }
+
+    private static int firstSharedBlock(int[] firstBlocks, int[] secondBlocks){
+        int i = 0;
+        int j = 0;
+        while(i < firstBlocks.length && j < secondBlocks.length){
+            if(firstBlocks[i] == secondBlocks[j]){
+                return firstBlocks[i];
+            }
+            if(firstBlocks[i] < secondBlocks[j]){
+                i++;
+            }
+            else {
+                j++;
+            }
+        }
+        return -1;
+    }
+
+    private List<List<Integer>> cluster(List<ArticleScoringFields> articles, Collection<int[]> duplicatePairs){
+        int[] parent = new int[articles.size()];
+        for(int i = 0; i < parent.length; i++){
+            parent[i] = i;
+        }
+        for(int[] pair : duplicatePairs){
+            int firstRoot = find(parent, pair[0]);
+            int secondRoot = find(parent, pair[1]);
+            if(firstRoot != secondRoot){
+                parent[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+            }
+        }
+
+        Map<Integer, List<Integer>> clusters = new TreeMap<>();
+        for(int[] pair : duplicatePairs){
+            clusters.computeIfAbsent(find(parent, pair[0]), root -> new ArrayList<>());
+        }
+        for(int i = 0; i < parent.length; i++){
+            List<Integer> cluster = clusters.get(find(parent, i));
+            if(cluster != null){
+                cluster.add(articles.get(i).id());
+            }
+        }
+        return new ArrayList<>(clusters.values());
+    }
+
+    private int find(int[] parent, int index){
+        while(parent[index] != index){
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+}
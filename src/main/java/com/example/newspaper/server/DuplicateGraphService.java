@@ -0,0 +1,133 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.DuplicateEdge;
+import com.example.newspaper.repository.ArticleRepository;
+import com.example.newspaper.repository.DuplicateEdgeRepository;
+import com.example.newspaper.repository.DuplicateEdgeRepository.DuplicateEdgeView;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the persisted duplicate graph in step with article writes, so reading the duplicates
+ * of an article is a lookup of its edges instead of a new search.
+ * Articles written without going through {@link #refresh(Article)} have no edge to themselves yet;
+ * their duplicates are computed and stored on the first read.
+ * The first read writes: inside a read-only transaction it does so in a transaction of its own, so the edges
+ * go to the primary even when the caller reads from the replica.
+ */
+@Service
+public class DuplicateGraphService {
+    private final ArticleService articleService;
+    private final ArticleRepository articleRepository;
+    private final DuplicateEdgeRepository duplicateEdgeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public DuplicateGraphService(ArticleService articleService, ArticleRepository articleRepository,
+                                 DuplicateEdgeRepository duplicateEdgeRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.articleService = articleService;
+        this.articleRepository = articleRepository;
+        this.duplicateEdgeRepository = duplicateEdgeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Collection<Article> findDuplicates(Article article){
+        List<DuplicateEdgeView> edges = duplicateEdgeRepository.findByArticleIdOrderByDuplicateIdAsc(article.getId());
+        boolean scored = edges.stream().anyMatch(edge -> edge.getDuplicateId().equals(article.getId()));
+        if(!scored){
+            // a read-only caller may be reading from the replica, the edges are written on the primary
+            TransactionTemplate template = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    ? newTransactionTemplate : transactionTemplate;
+            return template.execute(status -> new ArrayList<>(refresh(article).keySet()));
+        }
+
+        List<Integer> duplicateIds = new ArrayList<>();
+        for(DuplicateEdgeView edge : edges){
+            if(articleService.isDuplicate(edge.getScore())){
+                duplicateIds.add(edge.getDuplicateId());
+            }
+        }
+        if(duplicateIds.isEmpty()){
+            return new ArrayList<>();
+        }
+        return articleRepository.findDistinctByIdInOrderByIdAsc(duplicateIds);
+    }
+
+    /**
+     * Replaces all edges of the article with freshly scored ones. Scores are symmetric,
+     * so every pair is written in both directions.
+     */
+    @Transactional
+    public Map<Article, Integer> refresh(Article article){
+        duplicateEdgeRepository.deleteAllOfArticle(article.getId());
+
+        Map<Article, Integer> duplicates = articleService.scoreDuplicates(article);
+        List<DuplicateEdge> edges = new ArrayList<>();
+        edges.add(new DuplicateEdge(article.getId(), article.getId(), articleService.duplicationScore(article, article)));
+        for(Map.Entry<Article, Integer> duplicate : duplicates.entrySet()){
+            Integer duplicateId = duplicate.getKey().getId();
+            if(!duplicateId.equals(article.getId())){
+                edges.add(new DuplicateEdge(article.getId(), duplicateId, duplicate.getValue()));
+                edges.add(new DuplicateEdge(duplicateId, article.getId(), duplicate.getValue()));
+            }
+        }
+        // Edges are only ever read as values, so they are written and detached right away;
+        // a later refresh in the same transaction can then write the same pairs again.
+        duplicateEdgeRepository.saveAllAndFlush(edges);
+        edges.forEach(entityManager::detach);
+
+        return duplicates;
+    }
+
+    /**
+     * Writes the edges of articles that were just inserted and have none yet. The articles are scored as one
+     * batch ({@link ArticleService#scoreDuplicates(List)}) and the edges of the whole batch are inserted together;
+     * the existing articles keep their edges and get the ones to the new articles.
+     */
+    @Transactional
+    public void addAll(List<Article> articles){
+        Map<Integer, Map<Integer, Integer>> duplicates = articleService.scoreDuplicates(articles);
+        // a pair of two new articles is scored from both sides
+        Map<DuplicateEdge.Key, DuplicateEdge> edges = new LinkedHashMap<>();
+        for(Article article : articles){
+            Integer articleId = article.getId();
+            edges.put(new DuplicateEdge.Key(articleId, articleId),
+                    new DuplicateEdge(articleId, articleId, articleService.duplicationScore(article, article)));
+            for(Map.Entry<Integer, Integer> duplicate : duplicates.getOrDefault(articleId, Map.of()).entrySet()){
+                Integer duplicateId = duplicate.getKey();
+                if(!duplicateId.equals(articleId)){
+                    edges.put(new DuplicateEdge.Key(articleId, duplicateId),
+                            new DuplicateEdge(articleId, duplicateId, duplicate.getValue()));
+                    edges.put(new DuplicateEdge.Key(duplicateId, articleId),
+                            new DuplicateEdge(duplicateId, articleId, duplicate.getValue()));
+                }
+            }
+        }
+        duplicateEdgeRepository.saveAllAndFlush(edges.values());
+        edges.values().forEach(entityManager::detach);
+    }
+
+    @Transactional
+    public void remove(Integer articleId){
+        duplicateEdgeRepository.deleteAllOfArticle(articleId);
+    }
+}
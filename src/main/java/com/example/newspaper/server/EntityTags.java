@@ -0,0 +1,64 @@
+package com.example.newspaper.server;
+
+import java.util.Collection;
+
+/**
+ * Weak entity tags built from the ids and versions of everything a response contains.
+ * A tag can so be computed with a scalar query, without loading or serializing the entities.
+ * The rows are combined independently of their order, the database returns join rows in any order.
+ * The tags are weak because the same data goes out in several encodings (JSON, CBOR, Smile, gzip) under
+ * one tag; the servlet container also refuses to compress a response with a strong tag.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(Collection<Object[]> versionRows){
+        return of(versionRows, null);
+    }
+
+    /**
+     * The tag of one variant of the representation, e.g. the one with only some of the fields.
+     */
+    public static String of(Collection<Object[]> versionRows, Object variant){
+        long tag = versionRows.size();
+        if(variant != null){
+            tag = mix(tag * 31 + variant.hashCode());
+        }
+        for(Object[] row : versionRows){
+            long rowHash = 17;
+            for(Object value : row){
+                rowHash = mix(rowHash * 31 + (value == null ? 0 : value.hashCode()));
+            }
+            tag += rowHash;
+        }
+        return "W/\"" + Long.toHexString(mix(tag)) + "\"";
+    }
+
+    /**
+     * Checks an If-None-Match header against the tag. Tags are compared weakly, as the header requires.
+     */
+    public static boolean matches(String entityTag, String ifNoneMatch){
+        if(ifNoneMatch == null){
+            return false;
+        }
+        for(String candidate : ifNoneMatch.split(",")){
+            String trimmed = candidate.trim();
+            if(trimmed.equals("*") || opaqueTag(trimmed).equals(opaqueTag(entityTag))){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String entityTag){
+        return entityTag.startsWith("W/") ? entityTag.substring(2) : entityTag;
+    }
+
+    private static long mix(long value){
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
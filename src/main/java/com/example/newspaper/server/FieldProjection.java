@@ -0,0 +1,186 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.dto.CursorPage;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Reads only the requested fields of entities (sparse fieldsets, the fields parameter of the read endpoints).
+ * The fields become the select list of a tuple query, so the other columns are not selected and no entity
+ * is hydrated: nothing is put into the persistence context and no association is loaded.
+ * The fields are the basic attributes an entity shows in its JSON, associations cannot be selected.
+ * A page is read with two queries limited to the page: the ids and versions for the ETag, then the fields.
+ */
+@Service
+public class FieldProjection {
+    private static final String ID = "id";
+    private static final String VERSION = "version";
+
+    private final Map<Class<?>, Set<String>> selectableFields = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Parses a comma-separated list of fields, in the order given and without repetitions.
+     *
+     * @throws IllegalArgumentException if the list is empty or names a field the entity does not have
+     */
+    public List<String> parseFields(Class<?> entityType, String fields){
+        Set<String> selectable = selectableFields.computeIfAbsent(entityType, this::findSelectableFields);
+        Set<String> result = new LinkedHashSet<>();
+        for(String field : fields.split(",")){
+            String trimmed = field.trim();
+            if(trimmed.isEmpty()){
+                continue;
+            }
+            if(!selectable.contains(trimmed)){
+                throw new IllegalArgumentException("Unknown field " + trimmed + ", the fields are " + selectable);
+            }
+            result.add(trimmed);
+        }
+        if(result.isEmpty()){
+            throw new IllegalArgumentException("No field requested, the fields are " + selectable);
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Returns a page of the entities ordered by id with only the fields, after the id of the cursor, or 304(not modified)
+     * if the page still matches If-None-Match and 400(bad request) if the fields or the cursor are not valid.
+     * The ids and versions of the page are read first, for the ETag, and the fields only if the page changed;
+     * both queries are limited to the page.
+     */
+    public ResponseEntity<CursorPage<Map<String, Object>>> findPage(Class<?> entityType, String fields, String cursor,
+                                                                    Integer size, String ifNoneMatch){
+        List<String> fieldList;
+        int afterId;
+        try {
+            fieldList = parseFields(entityType, fields);
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = CursorPage.limitSize(size);
+        BiFunction<CriteriaBuilder, Root<?>, Predicate> afterCursor = (builder, root) -> builder.greaterThan(root.get(ID), afterId);
+        String entityTag = EntityTags.of(findVersions(entityType, afterCursor, pageSize + 1), fieldList);
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
+        List<Tuple> rows = findFields(entityType, fieldList, afterCursor, pageSize + 1);
+        List<Integer> pageIds = new ArrayList<>();
+        rows.forEach(row -> pageIds.add(row.get(ID, Integer.class)));
+        List<Map<String, Object>> items = toMaps(rows.subList(0, Math.min(rows.size(), pageSize)), fieldList);
+        return ResponseEntity.ok().eTag(entityTag).body(CursorPage.ofIds(items, pageIds, pageSize));
+    }
+
+    /**
+     * Returns the fields of the entity with the id, or 304(not modified) if it still matches If-None-Match,
+     * 404(not found) if there is no such entity and 400(bad request) if the fields are not valid.
+     */
+    public ResponseEntity<Map<String, Object>> findById(Class<?> entityType, Integer id, String fields, String ifNoneMatch){
+        List<String> fieldList;
+        try {
+            fieldList = parseFields(entityType, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        BiFunction<CriteriaBuilder, Root<?>, Predicate> byId = (builder, root) -> builder.equal(root.get(ID), id);
+        List<Object[]> versions = findVersions(entityType, byId, 1);
+        if(versions.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        String entityTag = EntityTags.of(versions, fieldList);
+        if(EntityTags.matches(entityTag, ifNoneMatch)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
+        List<Map<String, Object>> items = toMaps(findFields(entityType, fieldList, byId, 1), fieldList);
+        if(items.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(entityTag).body(items.get(0));
+    }
+
+    /**
+     * The ids and versions of the entities alone, the fields hold no association.
+     */
+    private List<Object[]> findVersions(Class<?> entityType, BiFunction<CriteriaBuilder, Root<?>, Predicate> restriction, int limit){
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<?> root = query.from(entityType);
+        query.multiselect(root.get(ID), root.get(VERSION))
+                .where(restriction.apply(builder, root))
+                .orderBy(builder.asc(root.get(ID)));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getResultList();
+    }
+
+    private List<Tuple> findFields(Class<?> entityType, List<String> fields, BiFunction<CriteriaBuilder, Root<?>, Predicate> restriction, int limit){
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<?> root = query.from(entityType);
+        // the id is always selected for the order and the cursor, it is only returned when it was requested
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get(ID).alias(ID));
+        for(String field : fields){
+            if(!field.equals(ID)){
+                selections.add(root.get(field).alias(field));
+            }
+        }
+        query.multiselect(selections)
+                .where(restriction.apply(builder, root))
+                .orderBy(builder.asc(root.get(ID)));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> rows, List<String> fields){
+        List<Map<String, Object>> result = new ArrayList<>();
+        for(Tuple tuple : rows){
+            Map<String, Object> values = new LinkedHashMap<>();
+            for(String field : fields){
+                values.put(field, tuple.get(field));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    private Set<String> findSelectableFields(Class<?> entityType){
+        Set<String> fields = new LinkedHashSet<>();
+        for(SingularAttribute<?, ?> attribute : entityManager.getMetamodel().entity(entityType).getSingularAttributes()){
+            boolean hidden = attribute.getJavaMember() instanceof AnnotatedElement
+                    && ((AnnotatedElement) attribute.getJavaMember()).isAnnotationPresent(JsonIgnore.class);
+            if(attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC && !hidden){
+                fields.add(attribute.getName());
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.newspaper.server;
+
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hibernate takes a single integrator provider from its properties; the integrators of the application
+ * are added to it one by one, whatever the order their customizers run in.
+ */
+final class HibernateIntegrators {
+
+    private HibernateIntegrators() {
+    }
+
+    static void add(Map<String, Object> hibernateProperties, Integrator integrator){
+        IntegratorProvider previous = (IntegratorProvider) hibernateProperties.get(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER);
+        IntegratorProvider provider = () -> {
+            List<Integrator> integrators = new ArrayList<>();
+            if(previous != null){
+                integrators.addAll(previous.getIntegrators());
+            }
+            integrators.add(integrator);
+            return integrators;
+        };
+        hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, provider);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.newspaper.server;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+
+/**
+ * Moves the id sequences of articles, authors and sites past the ids in their tables. The ids used to be
+ * identity columns; on a database from those days the sequences start at 1 and the first inserts would
+ * take ids that exist. A sequence is only restarted when the ids it hands out next could be taken; reading
+ * its next value skips a block of ids, as every restart of the application does. Runs once the beans exist
+ * and before the server takes requests; not lazy, so it runs with lazy initialization as well.
+ * Dialects without sequences (MySQL) keep the next value in a table of the same name instead.
+ */
+@Component
+@Lazy(false)
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceInitializer.class);
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "article", "article_seq",
+            "author", "author_seq",
+            "site", "site_seq");
+    // the allocation size of the sequences: the pooled optimizer hands out the block below a value it reads
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        SEQUENCES.forEach((table, sequence) -> initialize(dialect, table, sequence));
+    }
+
+    private void initialize(Dialect dialect, String table, String sequence){
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if(maxId == null){
+            return;
+        }
+        long next = dialect.supportsSequences()
+                ? jdbcTemplate.queryForObject(dialect.getSequenceNextValString(sequence), Long.class)
+                : jdbcTemplate.queryForObject("select next_val from " + sequence, Long.class);
+        if(next - ALLOCATION_SIZE >= maxId){
+            return;
+        }
+        // past the ids, whichever end of its block the optimizer takes the value for
+        long restart = maxId + 2 * ALLOCATION_SIZE + 1;
+        if(dialect.supportsSequences()){
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + restart);
+        }
+        else {
+            jdbcTemplate.update("update " + sequence + " set next_val = ?", restart);
+        }
+        log.info("Restarted {} with {}, past the ids of {}", sequence, restart, table);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.newspaper.server;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns on useCursorFetch for the MySQL pools. Without it MySQL Connector/J reads the whole result of a query
+ * into memory whatever the fetch size, so the article export (see ArticleRepository#streamAll) would hold the
+ * whole table; with it a positive fetch size reads the rows through a server-side cursor, that many at a time.
+ * Only statements with a fetch size use a cursor. A useCursorFetch given in the URL is left as it is.
+ */
+@Component
+public class MySqlCursorFetch implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // the pools start with their first connection, the settings are bound by then
+        if(bean instanceof HikariDataSource){
+            HikariDataSource dataSource = (HikariDataSource) bean;
+            String url = dataSource.getJdbcUrl();
+            if(url != null && url.startsWith("jdbc:mysql:") && !url.contains("useCursorFetch")){
+                dataSource.addDataSourceProperty("useCursorFetch", "true");
+            }
+        }
+        return bean;
+    }
+}
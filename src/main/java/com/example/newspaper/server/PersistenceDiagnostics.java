@@ -0,0 +1,300 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.dto.PersistenceStatistics;
+import com.example.newspaper.dto.SlowQuery;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.internal.StatisticsInitiator;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Attributes the Hibernate statistics to the requests that caused them.
+ * Hibernate builds its statistics through this factory, so every event it counts globally (statements,
+ * queries, entity and collection loads, cache hits, flushes) is also counted for the request running on
+ * the current thread and summed per endpoint. Queries slower than the threshold are kept in a ring buffer
+ * with the endpoint they ran for. Work outside of a request (jobs, streamed responses) is only counted
+ * globally, its slow queries are logged with the name of the thread.
+ * The statistics are only collected while hibernate.generate_statistics is on.
+ */
+@Component
+public class PersistenceDiagnostics implements StatisticsFactory, HibernatePropertiesCustomizer {
+    private static final Logger log = LoggerFactory.getLogger(PersistenceDiagnostics.class);
+
+    private final ThreadLocal<RequestStatistics> currentRequest = new ThreadLocal<>();
+    private final Map<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+    private final long slowQueryThresholdMillis;
+    private final int statementsWarningThreshold;
+    private final SlowQuery[] slowQueries;
+    private int nextSlowQuery;
+
+    public PersistenceDiagnostics(@Value("${newspaper.persistence.slow-query-threshold:200ms}") Duration slowQueryThreshold,
+                                  @Value("${newspaper.persistence.slow-query-log-size:100}") int slowQueryLogSize,
+                                  @Value("${newspaper.persistence.statements-per-request-warning:100}") int statementsWarningThreshold) {
+        this.slowQueryThresholdMillis = slowQueryThreshold.toMillis();
+        this.statementsWarningThreshold = statementsWarningThreshold;
+        this.slowQueries = new SlowQuery[Math.max(1, slowQueryLogSize)];
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(StatisticsInitiator.STATS_BUILDER, this);
+    }
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new RequestAwareStatistics(sessionFactory);
+    }
+
+    /**
+     * Starts counting for the request on the current thread. The endpoint is resolved when it is
+     * needed, by then the handler of the request is known.
+     */
+    public RequestStatistics begin(Supplier<String> endpoint){
+        RequestStatistics statistics = new RequestStatistics(endpoint);
+        currentRequest.set(statistics);
+        return statistics;
+    }
+
+    public void end(RequestStatistics statistics){
+        currentRequest.remove();
+        String endpoint = statistics.endpoint.get();
+        endpoints.computeIfAbsent(endpoint, name -> new EndpointStatistics()).add(statistics);
+        if(statistics.statements > statementsWarningThreshold){
+            log.warn("{} ran {} statements ({} entity fetches, {} collection fetches)", endpoint,
+                    statistics.statements, statistics.entityFetches, statistics.collectionFetches);
+        }
+    }
+
+    public List<PersistenceStatistics.Endpoint> getEndpoints(){
+        List<PersistenceStatistics.Endpoint> result = new ArrayList<>();
+        endpoints.forEach((name, statistics) -> result.add(statistics.toEndpoint(name)));
+        result.sort(Comparator.comparing(PersistenceStatistics.Endpoint::getEndpoint));
+        return result;
+    }
+
+    /**
+     * Returns the logged slow queries, the latest first.
+     */
+    public synchronized List<SlowQuery> getSlowQueries(){
+        List<SlowQuery> result = new ArrayList<>();
+        for(int i = 1; i <= slowQueries.length; i++){
+            SlowQuery slowQuery = slowQueries[Math.floorMod(nextSlowQuery - i, slowQueries.length)];
+            if(slowQuery == null){
+                break;
+            }
+            result.add(slowQuery);
+        }
+        return result;
+    }
+
+    public synchronized void reset(){
+        endpoints.clear();
+        Arrays.fill(slowQueries, null);
+        nextSlowQuery = 0;
+    }
+
+    private synchronized void logSlowQuery(SlowQuery slowQuery){
+        slowQueries[nextSlowQuery] = slowQuery;
+        nextSlowQuery = (nextSlowQuery + 1) % slowQueries.length;
+    }
+
+    /**
+     * The counts of one request. It is only touched by the thread of the request.
+     */
+    public static class RequestStatistics {
+        private final Supplier<String> endpoint;
+        private long statements;
+        private long queries;
+        private long entityLoads;
+        private long entityFetches;
+        private long collectionLoads;
+        private long collectionFetches;
+        private long cacheHits;
+        private long cacheMisses;
+        private long flushes;
+
+        private RequestStatistics(Supplier<String> endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static class EndpointStatistics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final AtomicLong maxStatements = new AtomicLong();
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder entityLoads = new LongAdder();
+        private final LongAdder entityFetches = new LongAdder();
+        private final LongAdder collectionLoads = new LongAdder();
+        private final LongAdder collectionFetches = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+        private final LongAdder flushes = new LongAdder();
+
+        void add(RequestStatistics request){
+            requests.increment();
+            statements.add(request.statements);
+            maxStatements.accumulateAndGet(request.statements, Math::max);
+            queries.add(request.queries);
+            entityLoads.add(request.entityLoads);
+            entityFetches.add(request.entityFetches);
+            collectionLoads.add(request.collectionLoads);
+            collectionFetches.add(request.collectionFetches);
+            cacheHits.add(request.cacheHits);
+            cacheMisses.add(request.cacheMisses);
+            flushes.add(request.flushes);
+        }
+
+        PersistenceStatistics.Endpoint toEndpoint(String name){
+            return new PersistenceStatistics.Endpoint(name, requests.sum(), statements.sum(), maxStatements.get(),
+                    queries.sum(), entityLoads.sum(), entityFetches.sum(), collectionLoads.sum(), collectionFetches.sum(),
+                    cacheHits.sum(), cacheMisses.sum(), flushes.sum());
+        }
+    }
+
+    /**
+     * Hibernate's own statistics, which also count into the request of the current thread.
+     */
+    private class RequestAwareStatistics extends StatisticsImpl {
+
+        RequestAwareStatistics(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void prepareStatement() {
+            super.prepareStatement();
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.statements++;
+            }
+        }
+
+        @Override
+        public void queryExecuted(String query, int rows, long time) {
+            super.queryExecuted(query, rows, time);
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.queries++;
+            }
+            if(time >= slowQueryThresholdMillis){
+                String endpoint = request != null ? request.endpoint.get() : "[" + Thread.currentThread().getName() + "]";
+                logSlowQuery(new SlowQuery(Instant.now(), endpoint, query, time, rows));
+            }
+        }
+
+        @Override
+        public void loadEntity(String entityName) {
+            super.loadEntity(entityName);
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.entityLoads++;
+            }
+        }
+
+        @Override
+        public void fetchEntity(String entityName) {
+            super.fetchEntity(entityName);
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.entityFetches++;
+            }
+        }
+
+        @Override
+        public void loadCollection(String role) {
+            super.loadCollection(role);
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.collectionLoads++;
+            }
+        }
+
+        @Override
+        public void fetchCollection(String role) {
+            super.fetchCollection(role);
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.collectionFetches++;
+            }
+        }
+
+        @Override
+        public void entityCacheHit(NavigableRole entityName, String regionName) {
+            super.entityCacheHit(entityName, regionName);
+            cacheHit();
+        }
+
+        @Override
+        public void entityCacheMiss(NavigableRole entityName, String regionName) {
+            super.entityCacheMiss(entityName, regionName);
+            cacheMiss();
+        }
+
+        @Override
+        public void collectionCacheHit(NavigableRole collectionRole, String regionName) {
+            super.collectionCacheHit(collectionRole, regionName);
+            cacheHit();
+        }
+
+        @Override
+        public void collectionCacheMiss(NavigableRole collectionRole, String regionName) {
+            super.collectionCacheMiss(collectionRole, regionName);
+            cacheMiss();
+        }
+
+        @Override
+        public void queryCacheHit(String query, String regionName) {
+            super.queryCacheHit(query, regionName);
+            cacheHit();
+        }
+
+        @Override
+        public void queryCacheMiss(String query, String regionName) {
+            super.queryCacheMiss(query, regionName);
+            cacheMiss();
+        }
+
+        @Override
+        public void flush() {
+            super.flush();
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.flushes++;
+            }
+        }
+
+        private void cacheHit(){
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.cacheHits++;
+            }
+        }
+
+        private void cacheMiss(){
+            RequestStatistics request = currentRequest.get();
+            if(request != null){
+                request.cacheMisses++;
+            }
+        }
+    }
+}
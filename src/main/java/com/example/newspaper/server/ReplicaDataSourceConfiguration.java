@@ -0,0 +1,64 @@
+package com.example.newspaper.server;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the data source of Spring Boot with a primary and a replica pool once
+ * newspaper.datasource.replica.jdbc-url is set. The primary is configured by spring.datasource.* as before,
+ * the replica pool by newspaper.datasource.replica.* (jdbc-url, username, password and the other Hikari settings).
+ * Without a replica everything stays on the single data source of Spring Boot.
+ * The transactions that read from the replica get a {@link ReplicaReadsJpaDialect}, they do not fill the cache.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("newspaper.datasource.replica.jdbc-url")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties){
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("newspaper.datasource.replica")
+    public HikariDataSource replicaDataSource(){
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource){
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    @Bean
+    public static BeanPostProcessor replicaReadsJpaDialect(){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // before the factory takes the dialect of its vendor adapter
+                if(bean instanceof AbstractEntityManagerFactoryBean){
+                    ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new ReplicaReadsJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.newspaper.server;
+
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+
+/**
+ * Keeps the transactions that read from the replica from filling the second-level and the query cache.
+ * The cache is shared with the primary: a replica that lags behind would put rows and query results into it
+ * that are older than the last commit, and every client, also the ones reading from the primary, would be
+ * served them until the next write to the table. The sessions of these transactions only read from the cache
+ * (CacheMode.GET). The store mode is set as the JPA property rather than as the cache mode of the session,
+ * Hibernate derives the cache mode of every find from the property.
+ */
+public class ReplicaReadsJpaDialect extends HibernateJpaDialect {
+    private static final String STORE_MODE = "javax.persistence.cache.storeMode";
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition) throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if(!definition.isReadOnly() || !ReplicaRoutingDataSource.isReplicaReadsAllowed()){
+            return transactionData;
+        }
+        Object previousStoreMode = entityManager.getProperties().get(STORE_MODE);
+        entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReplicaTransactionData(transactionData, entityManager,
+                previousStoreMode != null ? previousStoreMode : CacheStoreMode.USE);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if(transactionData instanceof ReplicaTransactionData){
+            ReplicaTransactionData replicaTransactionData = (ReplicaTransactionData) transactionData;
+            // the entity manager outlives the transaction when it is bound to the request
+            replicaTransactionData.entityManager.setProperty(STORE_MODE, replicaTransactionData.previousStoreMode);
+            transactionData = replicaTransactionData.transactionData;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private static class ReplicaTransactionData {
+        private final Object transactionData;
+        private final EntityManager entityManager;
+        private final Object previousStoreMode;
+
+        ReplicaTransactionData(Object transactionData, EntityManager entityManager, Object previousStoreMode) {
+            this.transactionData = transactionData;
+            this.entityManager = entityManager;
+            this.previousStoreMode = previousStoreMode;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.newspaper.server;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * A thread only reads from the replica while it is allowed to, see {@link #allowReplicaReads()};
+ * all other work, including the read-only transactions of the repository methods within writes, stays on the primary.
+ * The routing is decided when the first statement needs a connection, so this data source has to sit
+ * behind a LazyConnectionDataSourceProxy: by then the transaction has been marked read-only.
+ * The sessions of these transactions do not fill the second-level cache, see {@link ReplicaReadsJpaDialect}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Boolean> replicaReads = new ThreadLocal<>();
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Lets the read-only transactions of the current thread read from the replica until {@link #clear()}.
+     */
+    public static void allowReplicaReads(){
+        replicaReads.set(Boolean.TRUE);
+    }
+
+    public static void clear(){
+        replicaReads.remove();
+    }
+
+    /**
+     * Whether the read-only transactions of the current thread read from the replica.
+     */
+    public static boolean isReplicaReadsAllowed(){
+        return Boolean.TRUE.equals(replicaReads.get());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if(isReplicaReadsAllowed() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+}
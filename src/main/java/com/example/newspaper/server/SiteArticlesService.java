@@ -0,0 +1,145 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.dto.ArticleSetDelta;
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Site;
+import com.example.newspaper.repository.ArticleRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Changes which articles belong to a site one article at a time.
+ * The link is owned by {@link Article#getSite()}, so only the articles that move are loaded and only their
+ * join rows are written; the site and its other articles are never loaded. The second-level cache entries
+ * of the moved articles and the article collections of their old and new site are evicted by Hibernate.
+ */
+@Service
+public class SiteArticlesService {
+    private final ArticleRepository articleRepository;
+    private final AuthorResolver authorResolver;
+    private final DuplicateGraphService duplicateGraphService;
+    private final ArticleSearchIndex articleSearchIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SiteArticlesService(ArticleRepository articleRepository, AuthorResolver authorResolver,
+                               DuplicateGraphService duplicateGraphService, ArticleSearchIndex articleSearchIndex) {
+        this.articleRepository = articleRepository;
+        this.authorResolver = authorResolver;
+        this.duplicateGraphService = duplicateGraphService;
+        this.articleSearchIndex = articleSearchIndex;
+    }
+
+    /**
+     * Adds articles to the site (moving them from their current site) and removes articles from it.
+     * Articles that are already where they should be are left alone; a missing (null) list adds or removes nothing.
+     *
+     * @return the ids that were actually added and removed
+     * @throws IllegalArgumentException if an id is null, an article does not exist or is both added and removed
+     */
+    @Transactional
+    public ArticleSetDelta apply(Integer siteId, Collection<Integer> add, Collection<Integer> remove){
+        if(add == null){
+            add = List.of();
+        }
+        if(remove == null){
+            remove = List.of();
+        }
+        if(add.stream().anyMatch(Objects::isNull) || remove.stream().anyMatch(Objects::isNull)){
+            throw new IllegalArgumentException("Article ids must not be null");
+        }
+        Set<Integer> ids = new HashSet<>(add);
+        for(Integer id : remove){
+            if(!ids.add(id)){
+                throw new IllegalArgumentException("Article " + id + " is both added and removed");
+            }
+        }
+        Map<Integer, Article> articles = articleRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
+        for(Integer id : ids){
+            if(!articles.containsKey(id)){
+                throw new IllegalArgumentException("Unknown article id " + id);
+            }
+        }
+
+        Site site = entityManager.getReference(Site.class, siteId);
+        List<Integer> added = new ArrayList<>();
+        for(Integer id : add){
+            Article article = articles.get(id);
+            if(!belongsTo(article, siteId)){
+                article.setSite(site);
+                added.add(id);
+            }
+        }
+        List<Integer> removed = new ArrayList<>();
+        for(Integer id : remove){
+            Article article = articles.get(id);
+            if(belongsTo(article, siteId)){
+                article.setSite(null);
+                removed.add(id);
+            }
+        }
+        added.sort(null);
+        removed.sort(null);
+        return new ArticleSetDelta(added, removed);
+    }
+
+    /**
+     * Makes the given articles the articles of the site. Articles with an id are references, only their
+     * membership changes; the difference to the current articles is applied with {@link #apply}.
+     * Articles without an id are created in the site.
+     * Finding the articles to remove reads the ids of all articles of the site, so this is O(n) in the size
+     * of the site; it backs the PUT kept for existing clients, new ones send the delta to {@link #apply}.
+     */
+    @Transactional
+    public ArticleSetDelta replace(Integer siteId, Collection<Article> articles){
+        Set<Integer> wanted = new HashSet<>();
+        List<Article> created = new ArrayList<>();
+        for(Article article : articles){
+            if(article.getId() != null){
+                wanted.add(article.getId());
+            }
+            else {
+                created.add(article);
+            }
+        }
+        Set<Integer> current = new HashSet<>(articleRepository.findIdsBySiteId(siteId, Pageable.unpaged()));
+
+        List<Integer> add = wanted.stream().filter(id -> !current.contains(id)).collect(Collectors.toList());
+        List<Integer> remove = current.stream().filter(id -> !wanted.contains(id)).collect(Collectors.toList());
+        ArticleSetDelta delta = apply(siteId, add, remove);
+
+        if(!created.isEmpty()){
+            authorResolver.resolve(created);
+            Site site = entityManager.getReference(Site.class, siteId);
+            for(Article article : created){
+                article.setSite(site);
+                Article newArticle = articleRepository.save(article);
+                duplicateGraphService.refresh(newArticle);
+                articleSearchIndex.index(newArticle);
+                delta.getAdd().add(newArticle.getId());
+            }
+        }
+        return delta;
+    }
+
+    private boolean belongsTo(Article article, Integer siteId){
+        // the id of an uninitialized site proxy is read without loading the site
+        return article.getSite() != null
+                && siteId.equals(entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(article.getSite()));
+    }
+}
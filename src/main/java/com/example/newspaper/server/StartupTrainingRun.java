@@ -0,0 +1,54 @@
+package com.example.newspaper.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+/**
+ * The training run of the class data sharing archive (the cds profile of the build).
+ * Once the application is ready it sends a few requests to itself, so the classes of the request path
+ * (MVC, Jackson, the queries) are loaded as well, and exits; the JVM then writes the classes it loaded
+ * to the archive. Only active with newspaper.startup.training-run=true.
+ */
+@Component
+@ConditionalOnProperty("newspaper.startup.training-run")
+public class StartupTrainingRun {
+    private static final Logger log = LoggerFactory.getLogger(StartupTrainingRun.class);
+    private static final List<String> PATHS = List.of("/articles?size=20", "/articles/1", "/articles/search?q=news",
+            "/authors?size=20", "/sites?size=20", "/actuator/health");
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void train(ApplicationReadyEvent event){
+        WebServerApplicationContext context = (WebServerApplicationContext) event.getApplicationContext();
+        HttpClient client = HttpClient.newHttpClient();
+        String base = "http://localhost:" + context.getWebServer().getPort();
+        for(String path : PATHS){
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(base + path)).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                log.info("Training request {} returned {}", path, response.statusCode());
+            } catch (IOException e) {
+                log.warn("Training request {} failed", path, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.newspaper.server;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Versioned entities arrive in request bodies without a version, nested authors, sites and articles
+ * included. Hibernate takes an entity without a version for a new one, so before such an entity is
+ * merged or persisted its stored version is filled in: writes without a version keep overwriting the
+ * stored state as before, writes with a version are checked against it.
+ */
+@Component
+public class StoredVersionListener implements MergeEventListener, PersistEventListener,
+        Integrator, HibernatePropertiesCustomizer {
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        HibernateIntegrators.add(hibernateProperties, this);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry listenerRegistry = serviceRegistry.getService(EventListenerRegistry.class);
+        listenerRegistry.prependListeners(EventType.MERGE, this);
+        listenerRegistry.prependListeners(EventType.PERSIST, this);
+        listenerRegistry.prependListeners(EventType.PERSIST_ONFLUSH, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void onMerge(MergeEvent event) {
+        adoptStoredVersion(event.getSession(), event.getEntityName(), event.getOriginal());
+    }
+
+    @Override
+    public void onMerge(MergeEvent event, Map copiedAlready) {
+        adoptStoredVersion(event.getSession(), event.getEntityName(), event.getOriginal());
+    }
+
+    @Override
+    public void onPersist(PersistEvent event) {
+        adoptStoredVersion(event.getSession(), event.getEntityName(), event.getObject());
+    }
+
+    @Override
+    public void onPersist(PersistEvent event, Map createdAlready) {
+        adoptStoredVersion(event.getSession(), event.getEntityName(), event.getObject());
+    }
+
+    private void adoptStoredVersion(EventSource session, String entityName, Object entity){
+        if(entity == null || entity instanceof HibernateProxy
+                || session.getPersistenceContextInternal().getEntry(entity) != null){
+            return;
+        }
+        EntityPersister persister = session.getEntityPersister(entityName, entity);
+        if(!persister.isVersioned() || persister.getVersion(entity) != null){
+            return;
+        }
+        Serializable id = persister.getIdentifier(entity, session);
+        if(id == null){
+            return;
+        }
+
+        Object storedVersion;
+        EntityKey key = session.generateEntityKey(id, persister);
+        Object managed = session.getPersistenceContextInternal().getEntity(key);
+        if(managed != null){
+            EntityEntry entry = session.getPersistenceContextInternal().getEntry(managed);
+            storedVersion = entry == null ? null : entry.getVersion();
+        }
+        else {
+            storedVersion = persister.getCurrentVersion(id, session);
+        }
+        if(storedVersion != null){
+            persister.setPropertyValue(entity, persister.getVersionProperty(), storedVersion);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.repository.ArticleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Computes the title LSH bands for articles that were stored before the bands existed
+ * (or were inserted bypassing the entity), so they can be found by the fuzzy title lookup.
+ */
+@Component
+public class TitleBandBackfill {
+    private static final Logger log = LoggerFactory.getLogger(TitleBandBackfill.class);
+    private static final int CHUNK_SIZE = 500;
+
+    private final ArticleRepository articleRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TitleBandBackfill(ArticleRepository articleRepository, TransactionTemplate transactionTemplate) {
+        this.articleRepository = articleRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill(){
+        int lastId = 0;
+        int updated = 0;
+        while(true){
+            final int afterId = lastId;
+            List<Article> chunk = transactionTemplate.execute(status -> {
+                List<Article> articles = articleRepository.findWithoutTitleBands(afterId, PageRequest.of(0, CHUNK_SIZE));
+                articles.forEach(Article::refreshTitleBands);
+                return articles;
+            });
+            if(chunk == null || chunk.isEmpty()){
+                break;
+            }
+            updated += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+        if(updated > 0){
+            log.info("Computed title bands for {} articles", updated);
+        }
+    }
+}
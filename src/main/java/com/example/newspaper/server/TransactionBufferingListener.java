@@ -0,0 +1,92 @@
+package com.example.newspaper.server;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A listener to the entity writes of a session that collects what it records per transaction, as the session
+ * flushes, and writes it in one go just before the commit, in the same transaction; a rolled back transaction
+ * drops what was collected. Subclasses record into {@link #pending(EventSource)} and write in
+ * {@link #beforeCompletion(Object)}.
+ */
+abstract class TransactionBufferingListener<T> implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, Integrator, HibernatePropertiesCustomizer {
+
+    private final Map<SharedSessionContractImplementor, T> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Returns an empty buffer for the records of a transaction.
+     */
+    protected abstract T newPending();
+
+    /**
+     * Writes the records of a transaction that is about to commit.
+     */
+    protected abstract void beforeCompletion(T pending);
+
+    /**
+     * Returns the records of the current transaction of the session, to add to.
+     */
+    protected T pending(EventSource session){
+        return pending.computeIfAbsent(session, this::register);
+    }
+
+    private T register(SharedSessionContractImplementor session){
+        EventSource eventSource = (EventSource) session;
+        eventSource.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> {
+            T records = pending.remove(completing);
+            if(records != null){
+                beforeCompletion(records);
+            }
+        });
+        // a rollback skips the process above
+        eventSource.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> pending.remove(completed));
+        return newPending();
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        HibernateIntegrators.add(hibernateProperties, this);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry listenerRegistry = serviceRegistry.getService(EventListenerRegistry.class);
+        listenerRegistry.appendListeners(EventType.POST_INSERT, this);
+        listenerRegistry.appendListeners(EventType.POST_UPDATE, this);
+        listenerRegistry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // still abstract in Hibernate 5, which calls the method above
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.newspaper.text;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Fuzzy title comparison based on character bigram shingles.
+ * Titles are normalized first (case, accents, punctuation and word order are ignored),
+ * so the similarity is the Jaccard index of the bigram sets of the normalized titles.
+ * For the candidate lookup every title is summarized by a MinHash signature that is split into
+ * LSH bands; titles that share at least one band key are likely to be similar.
+ * The band keys are stored with the article, so changing any of the parameters below
+ * requires the stored keys to be rebuilt.
+ */
+public final class TitleSimilarity {
+    public static final double MIN_SIMILARITY = 0.75;
+    public static final int LANGUAGE_ENGLISH = 1;
+    public static final int LANGUAGE_GERMAN = 2;
+
+    private static final int BANDS = 20;
+    private static final int ROWS_PER_BAND = 6;
+    private static final int SIGNATURE_SIZE = BANDS * ROWS_PER_BAND;
+    private static final long SEED = 0x5EEDL;
+    private static final long[] HASH_MULTIPLIERS = new long[SIGNATURE_SIZE];
+    private static final long[] HASH_INCREMENTS = new long[SIGNATURE_SIZE];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for(int i = 0; i < SIGNATURE_SIZE; i++){
+            HASH_MULTIPLIERS[i] = random.nextLong() | 1L;
+            HASH_INCREMENTS[i] = random.nextLong();
+        }
+    }
+
+    private TitleSimilarity() {
+    }
+
+    public static boolean isSimilar(String firstTitle, String secondTitle){
+        if(firstTitle == null || secondTitle == null){
+            return false;
+        }
+        return similarity(firstTitle, secondTitle) >= MIN_SIMILARITY;
+    }
+
+    public static double similarity(String firstTitle, String secondTitle){
+        Set<Integer> firstShingles = shingles(firstTitle);
+        Set<Integer> secondShingles = shingles(secondTitle);
+        if(firstShingles.isEmpty() && secondShingles.isEmpty()){
+            return 1.0;
+        }
+
+        int intersection = 0;
+        for(Integer shingle : firstShingles){
+            if(secondShingles.contains(shingle)){
+                intersection++;
+            }
+        }
+        return (double) intersection / (firstShingles.size() + secondShingles.size() - intersection);
+    }
+
+    /**
+     * Returns the LSH band keys of the title. The language is mixed into every key,
+     * so English titles are only bucketed together with English titles and German with German.
+     */
+    public static Set<Long> bandKeys(String title, int language){
+        Set<Long> keys = new HashSet<>();
+        if(title == null){
+            return keys;
+        }
+
+        long[] signature = signature(shingles(title));
+        for(int band = 0; band < BANDS; band++){
+            long key = mix(language * 31L + band);
+            for(int row = 0; row < ROWS_PER_BAND; row++){
+                key = mix(key ^ signature[band * ROWS_PER_BAND + row]);
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    public static Set<Long> bandKeys(String titleEnglish, String titleGerman){
+        Set<Long> keys = bandKeys(titleEnglish, LANGUAGE_ENGLISH);
+        keys.addAll(bandKeys(titleGerman, LANGUAGE_GERMAN));
+        return keys;
+    }
+
+    static String normalize(String title){
+        return TitleTokenizer.words(title).stream()
+                .sorted()
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Bigrams are encoded losslessly as the two chars packed into one int.
+     */
+    static Set<Integer> shingles(String title){
+        String normalized = normalize(title);
+        Set<Integer> shingles = new HashSet<>();
+        if(normalized.length() == 1){
+            shingles.add((int) normalized.charAt(0));
+        }
+        for(int i = 0; i + 1 < normalized.length(); i++){
+            shingles.add(normalized.charAt(i) << 16 | normalized.charAt(i + 1));
+        }
+        return shingles;
+    }
+
+    private static long[] signature(Set<Integer> shingles){
+        long[] signature = new long[SIGNATURE_SIZE];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for(Integer shingle : shingles){
+            for(int i = 0; i < SIGNATURE_SIZE; i++){
+                long hash = mix(HASH_MULTIPLIERS[i] * shingle + HASH_INCREMENTS[i]);
+                if(hash < signature[i]){
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static long mix(long value){
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.newspaper.text;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits titles into the terms of the search index.
+ * Words are folded the same way as for {@link TitleSimilarity} (case, accents, "ß"), stop words of the
+ * language are dropped and the rest are reduced by a light suffix stemmer, so "Zeitungen" finds "Zeitung"
+ * and "stories" finds "story". The stemmer only strips plural and inflection endings; it is meant to be
+ * combined with prefix matching, not to be a full Porter or Snowball stemmer.
+ */
+public final class TitleTokenizer {
+    private static final Set<String> ENGLISH_STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "s", "that", "the", "to", "with");
+    private static final Set<String> GERMAN_STOP_WORDS = Set.of(
+            "am", "an", "auf", "aus", "bei", "das", "dem", "den", "der", "des", "die", "ein", "eine", "einem",
+            "einen", "einer", "eines", "fur", "im", "in", "ist", "mit", "und", "vom", "von", "zu", "zum", "zur");
+    private static final String[] GERMAN_SUFFIXES = {"ern", "em", "en", "er", "es", "e", "n", "s"};
+    private static final int MIN_STEM_LENGTH = 4;
+
+    private TitleTokenizer() {
+    }
+
+    /**
+     * Returns the distinct terms of a title of the given language, in the order they appear.
+     */
+    public static Set<String> terms(String title, int language){
+        Set<String> terms = new LinkedHashSet<>();
+        if(title == null){
+            return terms;
+        }
+        for(String word : words(title)){
+            if(!isStopWord(word, language)){
+                terms.add(stem(word, language));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Returns the alternatives of every word of a query. The language of a query is unknown, so a word
+     * that is a stop word in either language is dropped and the others are stemmed for both languages.
+     */
+    public static List<Set<String>> queryTerms(String query){
+        List<Set<String>> terms = new ArrayList<>();
+        for(String word : words(query)){
+            if(isStopWord(word, TitleSimilarity.LANGUAGE_ENGLISH) || isStopWord(word, TitleSimilarity.LANGUAGE_GERMAN)){
+                continue;
+            }
+            Set<String> alternatives = new LinkedHashSet<>();
+            alternatives.add(stem(word, TitleSimilarity.LANGUAGE_ENGLISH));
+            alternatives.add(stem(word, TitleSimilarity.LANGUAGE_GERMAN));
+            terms.add(alternatives);
+        }
+        return terms;
+    }
+
+    static List<String> words(String text){
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}", "")
+                .replace("ß", "ss")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> words = new ArrayList<>();
+        for(String word : folded.split("[^\\p{L}\\p{N}]+")){
+            if(!word.isEmpty()){
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    static String stem(String word, int language){
+        if(language == TitleSimilarity.LANGUAGE_GERMAN){
+            for(String suffix : GERMAN_SUFFIXES){
+                if(word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM_LENGTH){
+                    return word.substring(0, word.length() - suffix.length());
+                }
+            }
+            return word;
+        }
+
+        if(word.endsWith("ies") && word.length() > MIN_STEM_LENGTH){
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if(word.endsWith("sses")){
+            return word.substring(0, word.length() - 2);
+        }
+        if(word.endsWith("s") && word.length() > MIN_STEM_LENGTH - 1
+                && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")){
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static boolean isStopWord(String word, int language){
+        return language == TitleSimilarity.LANGUAGE_GERMAN ? GERMAN_STOP_WORDS.contains(word) : ENGLISH_STOP_WORDS.contains(word);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.newspaper;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The beans are created lazily in the prod profile, so the first request is the first to need most of them.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("prod")
+@TestPropertySource(locations = "/application-test.properties",
+        properties = "spring.datasource.url=jdbc:h2:mem:newspaper_prod")
+class ProductionProfileTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void servesFirstRequest() throws Exception {
+		this.mockMvc
+				.perform(get("/articles"))
+				.andExpect(status().isOk());
+		this.mockMvc
+				.perform(get("/articles/search").param("q", "news"))
+				.andExpect(status().isOk());
+	}
+
+}
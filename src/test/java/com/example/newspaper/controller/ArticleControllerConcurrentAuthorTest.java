@@ -0,0 +1,82 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.repository.AuthorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * An author created by a concurrent write, committed after a write looked the name up and before it
+ * inserted the author. The lookup is made to miss the stored author; the context has the spy, so it is not reused.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ArticleControllerConcurrentAuthorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private AuthorRepository authorRepository;
+
+    @Test
+    void createWithAuthorCreatedConcurrently() throws Exception {
+        String article = "{\"titleEnglish\":\"Racing\",\"authors\":[{\"fullName\":\"Racing Author\"}]}";
+        jdbcTemplate.update("INSERT INTO author(id, full_name, normalized_name) VALUES(20, 'RACING AUTHOR', 'racing author')");
+        doReturn(List.of()).when(authorRepository).findByNormalizedNameIn(any());
+
+        this.mockMvc
+                .perform(post("/articles")
+                        .content(article)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM article", Integer.class)).isEqualTo(4);
+
+        // sent again, the write finds the author
+        reset(authorRepository);
+        this.mockMvc
+                .perform(post("/articles")
+                        .content(article)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM article_author WHERE author_id = 20", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void createAuthorNamedConcurrently() throws Exception {
+        jdbcTemplate.update("INSERT INTO author(id, full_name, normalized_name) VALUES(20, 'RACING AUTHOR', 'racing author')");
+        doReturn(false).when(authorRepository).existsByNormalizedName(any());
+
+        this.mockMvc
+                .perform(post("/authors")
+                        .content("{\"fullName\":\"Racing Author\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM author", Integer.class)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.server.IdSequenceInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Imports consume generated ids, so the context (and its in-memory database) is not reused
+ * by the tests that expect the first generated id.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ArticleControllerImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdSequenceInitializer idSequenceInitializer;
+
+    @BeforeEach
+    void restartSequences() {
+        // the fixtures are inserted with SQL, the imports must not run into their ids
+        idSequenceInitializer.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void importJsonArray() throws Exception {
+        String articles = "[" +
+                "{\"titleEnglish\":\"Imported one\",\"issnNumber\":1,\"isbnNumber\":2,\"yearPublication\":2023," +
+                "\"editionNumber\":3,\"authors\":[{\"id\":10}],\"site\":{\"id\":10}}," +
+                "{\"titleEnglish\":\"Imported two\",\"issnNumber\":4,\"isbnNumber\":5,\"yearPublication\":2023," +
+                "\"editionNumber\":6,\"authors\":[{\"fullName\":\"NEW AUTHOR\"}],\"site\":{\"id\":10}}" +
+                "]";
+
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content(articles)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andDo(print());
+
+        this.mockMvc
+                .perform(get("/sites/{id}/articles", 10))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(3)));
+    }
+
+    @Test
+    void importNdjson() throws Exception {
+        String articles =
+                "{\"titleEnglish\":\"Imported one\",\"issnNumber\":1,\"isbnNumber\":2,\"yearPublication\":2023,\"editionNumber\":3}\n" +
+                "{\"titleEnglish\":\"Imported one\",\"issnNumber\":1,\"isbnNumber\":2,\"yearPublication\":2023,\"editionNumber\":3}\n";
+
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content(articles)
+                        .contentType("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+    }
+
+    @Test
+    void importWritesDuplicateEdges() throws Exception {
+        String articles =
+                "{\"titleEnglish\":\"ARTICLE\",\"issnNumber\":13,\"isbnNumber\":12,\"yearPublication\":2023,\"editionNumber\":11}\n" +
+                "{\"titleEnglish\":\"ARTICLE\",\"issnNumber\":13,\"isbnNumber\":12,\"yearPublication\":2023,\"editionNumber\":11}\n";
+
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content(articles)
+                        .contentType("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        List<Integer> importedIds = jdbcTemplate.queryForList(
+                "SELECT id FROM article WHERE id NOT IN (10, 20, 30, 40) ORDER BY id", Integer.class);
+        assertThat(importedIds).hasSize(2);
+        // the imported articles are scored, with each other and with the existing duplicate 10
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT duplicate_id FROM duplicate_edge WHERE article_id = ? ORDER BY duplicate_id", Integer.class,
+                importedIds.get(0))).containsExactly(10, 40, importedIds.get(0), importedIds.get(1));
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT article_id FROM duplicate_edge WHERE duplicate_id = ? ORDER BY article_id", Integer.class,
+                importedIds.get(1))).containsExactly(10, 40, importedIds.get(0), importedIds.get(1));
+    }
+
+    @Test
+    void importUnknownAuthor() throws Exception {
+        String articles = "[{\"titleEnglish\":\"Imported\",\"authors\":[{\"id\":999}]}]";
+
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content(articles)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc
+                .perform(get("/articles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(4)));
+    }
+
+    @Test
+    void importResolvesAuthorsByName() throws Exception {
+        String articles = "[" +
+                "{\"titleEnglish\":\"Imported one\",\"authors\":[{\"fullName\":\" Author \"}]}," +
+                "{\"titleEnglish\":\"Imported two\",\"authors\":[{\"fullName\":\"New  Author\"}]}," +
+                "{\"titleEnglish\":\"Imported three\",\"authors\":[{\"fullName\":\"new author\"}]}" +
+                "]";
+
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content(articles)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM author", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM article_author WHERE author_id = 10", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM article_author aa JOIN author a ON a.id = aa.author_id " +
+                        "WHERE a.normalized_name = 'new author'", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void importMalformed() throws Exception {
+        String articles =
+                "{\"titleEnglish\":\"Imported one\",\"issnNumber\":1}\n" +
+                "{\"titleEnglish\":\"Imported two\",\"issnNumber\":\"two\"}\n" +
+                "{\"titleEnglish\":\n";
+
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content(articles)
+                        .contentType("application/x-ndjson"))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content("[{\"titleEnglish\":\"Imported\"},")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content("[{\"titleEnglish\":\"A title of more than twenty characters\"}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc
+                .perform(get("/articles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(4)));
+    }
+
+    @Test
+    void sequencesRestartPastExistingIds() throws Exception {
+        jdbcTemplate.update("INSERT INTO article(id, title_english) VALUES(5000, 'IDENTITY ROW')");
+
+        idSequenceInitializer.afterSingletonsInstantiated();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR article_seq", Long.class)).isGreaterThan(5050);
+        assertThat(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR site_seq", Long.class)).isLessThan(5000);
+    }
+}
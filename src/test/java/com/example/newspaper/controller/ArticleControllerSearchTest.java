@@ -0,0 +1,137 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.entity.Article;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The search index is built on startup and follows the writes of the API; the fixtures are written
+ * with plain SQL after startup, so the articles searched for are written through the API.
+ * That consumes generated ids, so the context is not reused by the tests that expect the first generated id.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ArticleControllerSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void search() throws Exception {
+        String articles = "[" +
+                "{\"titleEnglish\":\"City news report\",\"titleGerman\":\"Berliner Zeitungen\"}," +
+                "{\"titleEnglish\":\"Weather report\",\"titleGerman\":\"Wetterbericht\"}," +
+                "{\"titleEnglish\":\"Stories of the city\",\"titleGerman\":\"Geschichten aus der Stadt\"}" +
+                "]";
+        this.mockMvc
+                .perform(post("/articles/import")
+                        .content(articles)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "Zeitung"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].titleGerman").value("Berliner Zeitungen"))
+                .andDo(print());
+
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "berl"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].titleGerman").value("Berliner Zeitungen"));
+
+        // the shorter title ranks first
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "REPORT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].titleEnglish").value("Weather report"))
+                .andExpect(jsonPath("$[1].titleEnglish").value("City news report"));
+
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "city story"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].titleEnglish").value("Stories of the city"));
+
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "the"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void searchFollowsWrites() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Article article = new Article();
+        article.setTitleEnglish("Harbour festival");
+
+        String created = this.mockMvc
+                .perform(post("/articles")
+                        .content(mapper.writeValueAsString(article))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.read(created, "$.id");
+
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "harbour"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(id));
+
+        article.setId(id);
+        article.setTitleEnglish("Market festival");
+        this.mockMvc
+                .perform(put("/articles/{id}", id)
+                        .content(mapper.writeValueAsString(article))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "harbour"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "market festival"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        this.mockMvc
+                .perform(delete("/articles/{id}", id))
+                .andExpect(status().isNoContent());
+
+        this.mockMvc
+                .perform(get("/articles/search").param("q", "festival"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void searchBlankQuery() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+}
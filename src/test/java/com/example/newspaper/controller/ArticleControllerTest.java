@@ -2,15 +2,23 @@ package com.example.newspaper.controller;
 
 import com.example.newspaper.entity.Article;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.Collection;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -18,8 +26,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.isA;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
 @SpringBootTest
@@ -35,6 +42,12 @@ class ArticleControllerTest {
     @Autowired
     private ArticleController articleController;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     void contextLoads() {
         assertThat(articleController);
@@ -49,6 +62,163 @@ class ArticleControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void findAllByCursor() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        String firstPage = this.mockMvc
+                .perform(get("/articles").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].id").value(10))
+                .andExpect(jsonPath("$.items[2].id").value(30))
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = mapper.readTree(firstPage).get("nextCursor").asText();
+
+        this.mockMvc
+                .perform(get("/articles").param("size", "3").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id").value(40))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andDo(print());
+
+        this.mockMvc
+                .perform(get("/articles").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findAllFields() throws Exception {
+        jdbcTemplate.update("INSERT INTO article_author(article_id, author_id) VALUES(20, 10), (30, 10), (40, 10)");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        this.mockMvc
+                .perform(get("/articles").param("fields", "id,titleEnglish,yearPublication").param("size", "3"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].*", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].id").value(10))
+                .andExpect(jsonPath("$.items[0].titleEnglish").value("ARTICLE"))
+                .andExpect(jsonPath("$.items[1].yearPublication").value(2022))
+                .andExpect(jsonPath("$.items[1].authors").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+
+        // the ids with their versions, then the fields of the page; no article or author is loaded
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void findByIdFields() throws Exception {
+        MvcResult result = this.mockMvc
+                .perform(get("/articles/{id}", 20).param("fields", "titleGerman"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(1)))
+                .andExpect(jsonPath("$.titleGerman").value("ARTICLE2"))
+                .andReturn();
+        String entityTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc
+                .perform(get("/articles/{id}", 20).param("fields", "titleGerman").header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isNotModified());
+        // another selection of fields is another representation
+        this.mockMvc
+                .perform(get("/articles/{id}", 20).param("fields", "titleEnglish").header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isOk());
+        this.mockMvc
+                .perform(get("/articles/{id}", 50).param("fields", "titleGerman"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void fieldsBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get("/articles").param("fields", "id,unknown"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc
+                .perform(get("/articles/{id}", 10).param("fields", "authors"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc
+                .perform(get("/articles/{id}", 10).param("fields", ""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findAllBinaryFormats() throws Exception {
+        jdbcTemplate.update("INSERT INTO article_site(article_id, site_id) VALUES(20, 10)");
+        MvcResult json = this.mockMvc
+                .perform(get("/articles"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+        byte[] jsonBody = json.getResponse().getContentAsByteArray();
+
+        MediaType cbor = MediaType.parseMediaType("application/cbor");
+        MvcResult cborResult = this.mockMvc
+                .perform(get("/articles").accept(cbor))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(cbor))
+                .andReturn();
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        MvcResult smileResult = this.mockMvc
+                .perform(get("/articles").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(smile))
+                .andReturn();
+
+        // the same document, in fewer bytes
+        ObjectMapper mapper = new ObjectMapper();
+        byte[] cborBody = cborResult.getResponse().getContentAsByteArray();
+        byte[] smileBody = smileResult.getResponse().getContentAsByteArray();
+        assertThat(new CBORMapper().readTree(cborBody)).isEqualTo(mapper.readTree(jsonBody));
+        assertThat(new SmileMapper().readTree(smileBody)).isEqualTo(mapper.readTree(jsonBody));
+        assertThat(cborBody.length).isLessThan(jsonBody.length);
+        assertThat(smileBody.length).isLessThan(jsonBody.length);
+    }
+
+    @Test
+    void findAllLoadsAssociationsInBatches() throws Exception {
+        jdbcTemplate.update("INSERT INTO article_author(article_id, author_id) VALUES(20, 10), (30, 10), (40, 10)");
+        jdbcTemplate.update("INSERT INTO article_site(article_id, site_id) VALUES(20, 10), (30, 10), (40, 10)");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        this.mockMvc.perform(get("/articles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(4)))
+                .andExpect(jsonPath("$.items[3].authors[0].id").value(10))
+                .andExpect(jsonPath("$.items[3].site.id").value(10));
+
+        // the ids and versions of the page for its ETag, the page with its sites, then the authors of the whole page
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void export() throws Exception {
+        MvcResult result = this.mockMvc
+                .perform(get("/articles/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = this.mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        ObjectMapper mapper = new ObjectMapper();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(mapper.readTree(lines[0]).get("id").asInt()).isEqualTo(10);
+        assertThat(mapper.readTree(lines[0]).get("authors").get(0).get("fullName").asText()).isEqualTo("AUTHOR");
+        assertThat(mapper.readTree(lines[3]).get("id").asInt()).isEqualTo(40);
+    }
+
     @Test
     void findById() throws Exception {
         this.mockMvc
@@ -64,11 +234,93 @@ class ArticleControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    void findByIdNotModified() throws Exception {
+        String entityTag = this.mockMvc
+                .perform(get("/articles/{id}", 10))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        this.mockMvc
+                .perform(get("/articles/{id}", 10).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+                .andExpect(content().string(""));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        // renaming an embedded author changes the representation of the article
+        this.mockMvc
+                .perform(put("/authors/{id}", 10)
+                        .content("{\"id\":10,\"fullName\":\"RENAMED AUTHOR\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        this.mockMvc
+                .perform(get("/articles/{id}", 10).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authors[0].fullName").value("RENAMED AUTHOR"));
+    }
+
+    @Test
+    void findAllNotModified() throws Exception {
+        String entityTag = this.mockMvc
+                .perform(get("/articles").param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc
+                .perform(get("/articles").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isNotModified());
+
+        jdbcTemplate.update("UPDATE article SET version = version + 1 WHERE id = 20");
+        this.mockMvc
+                .perform(get("/articles").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)));
+    }
+
+    @Test
+    void updateWithOutdatedVersion() throws Exception {
+        String article = "{\"id\":30,\"version\":%d,\"titleEnglish\":\"ARTICLE_ENG\",\"titleGerman\":\"ARTICLE_GER\"," +
+                "\"issnNumber\":13,\"isbnNumber\":12,\"yearPublication\":2024,\"editionNumber\":11}";
+
+        this.mockMvc
+                .perform(put("/articles/{id}", 30)
+                        .content(String.format(article, 0))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        this.mockMvc
+                .perform(put("/articles/{id}", 30)
+                        .content(String.format(article, 0))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void deleteById() throws Exception {
         this.mockMvc
                 .perform(delete("/articles/{id}", 10) )
                 .andExpect(status().isNoContent());
+        // the site of the article stays
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM site WHERE id = 10", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void updateAndDeleteUnknownId() throws Exception {
+        this.mockMvc
+                .perform(put("/articles/{id}", 999)
+                        .content("{\"id\":999}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+
+        this.mockMvc
+                .perform(delete("/articles/{id}", 999))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -128,6 +380,37 @@ class ArticleControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    void createWithSite() throws Exception {
+        // a site with an id is the stored one, the fields sent along are not written
+        this.mockMvc
+                .perform(post("/articles")
+                        .content("{\"titleEnglish\":\"English\",\"site\":{\"id\":10,\"weblink\":\"CHANGED\"}}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.site.id").value(10))
+                .andExpect(jsonPath("$.site.weblink").value("SITE"));
+        assertThat(jdbcTemplate.queryForObject("SELECT weblink FROM site WHERE id = 10", String.class)).isEqualTo("SITE");
+
+        this.mockMvc
+                .perform(post("/articles")
+                        .content("{\"titleEnglish\":\"English\",\"site\":{\"id\":999}}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createWithId() throws Exception {
+        // a new article gets its id from the database, an id in the body is not used to overwrite a stored one
+        this.mockMvc
+                .perform(post("/articles")
+                        .content("{\"id\":10,\"titleEnglish\":\"OVERWRITTEN\",\"titleGerman\":\"OVERWRITTEN\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT title_english FROM article WHERE id = 10", String.class)).isEqualTo("ARTICLE");
+    }
+
     @Test
     void findDuplicateArticles() throws Exception {
 
@@ -152,4 +435,66 @@ class ArticleControllerTest {
                 .andExpect(jsonPath("$[1].editionNumber").value(11))
                 .andDo(print());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findDuplicateArticlesWithSimilarGermanTitle() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        Article article = new Article();
+        article.setId(20);
+        article.setTitleEnglish("Another title");
+        article.setTitleGerman("Article.");
+        article.setEditionNumber(11);
+        article.setIsbnNumber(12);
+        article.setIssnNumber(13);
+        article.setYearPublication(2022);
+
+        this.mockMvc
+                .perform(put("/articles/{id}", 20)
+                        .content(mapper.writeValueAsString(article))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        this.mockMvc
+                .perform(get("/articles/{id}/duplicates", 10))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(3)))
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andExpect(jsonPath("$[1].id").value(20))
+                .andExpect(jsonPath("$[1].titleGerman").value("Article."))
+                .andExpect(jsonPath("$[2].id").value(40))
+                .andDo(print());
+    }
+
+    @Test
+    void findDuplicateArticlesAfterUpdate() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        this.mockMvc
+                .perform(get("/articles/{id}/duplicates", 10))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(2)));
+
+        Article article = new Article();
+        article.setId(40);
+        article.setTitleEnglish("Different");
+        article.setTitleGerman("Anders");
+        article.setEditionNumber(11);
+        article.setIsbnNumber(12);
+        article.setIssnNumber(13);
+        article.setYearPublication(2020);
+
+        this.mockMvc
+                .perform(put("/articles/{id}", 40)
+                        .content(mapper.writeValueAsString(article))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        this.mockMvc
+                .perform(get("/articles/{id}/duplicates", 10))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andDo(print());
+    }
+}
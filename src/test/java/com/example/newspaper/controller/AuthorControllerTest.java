@@ -2,16 +2,19 @@ package com.example.newspaper.controller;
 
 import com.example.newspaper.entity.Author;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -29,6 +32,9 @@ class AuthorControllerTest {
     @Autowired
     private AuthorController authorController;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void contextLoads() {
         assertThat(authorController);
@@ -50,9 +56,51 @@ class AuthorControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(10))
                 .andExpect(jsonPath("$.fullName").value("AUTHOR"))
+                .andExpect(jsonPath("$.articles").doesNotExist())
                 .andDo(print());
     }
 
+    @Test
+    void findArticles() throws Exception {
+        jdbcTemplate.update("INSERT INTO article_author(article_id, author_id) VALUES(30, 10), (40, 10)");
+
+        String firstPage = this.mockMvc
+                .perform(get("/authors/{id}/articles", 10).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id").value(10))
+                .andExpect(jsonPath("$.items[0].authors[0].fullName").value("AUTHOR"))
+                .andExpect(jsonPath("$.items[1].id").value(30))
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+
+        this.mockMvc
+                .perform(get("/authors/{id}/articles", 10).param("size", "2")
+                        .param("cursor", JsonPath.<String>read(firstPage, "$.nextCursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id").value(40))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        this.mockMvc
+                .perform(get("/authors/{id}/articles", 999))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findByIdFields() throws Exception {
+        this.mockMvc
+                .perform(get("/authors/{id}", 10).param("fields", "fullName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fullName").value("AUTHOR"))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andDo(print());
+        // the normalized name is not part of the JSON of an author, it cannot be selected either
+        this.mockMvc
+                .perform(get("/authors").param("fields", "id,normalizedName"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void deleteById() throws Exception {
         this.mockMvc
@@ -60,6 +108,41 @@ class AuthorControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void updateAndDeleteUnknownId() throws Exception {
+        this.mockMvc
+                .perform(put("/authors/{id}", 999)
+                        .content("{\"id\":999}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+
+        this.mockMvc
+                .perform(delete("/authors/{id}", 999))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createAndUpdateWithTakenName() throws Exception {
+        this.mockMvc
+                .perform(post("/authors")
+                        .content("{\"fullName\":\" author \"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+
+        jdbcTemplate.update("INSERT INTO author(id, full_name, normalized_name) VALUES(20, 'OTHER', 'other')");
+        this.mockMvc
+                .perform(put("/authors/{id}", 20)
+                        .content("{\"id\":20,\"fullName\":\"Author\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+        // an author keeps its own name
+        this.mockMvc
+                .perform(put("/authors/{id}", 20)
+                        .content("{\"id\":20,\"fullName\":\"Other\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void update() throws Exception {
         ObjectMapper mapper = new ObjectMapper();
@@ -97,4 +180,16 @@ class AuthorControllerTest {
                 .andExpect(jsonPath("$.fullName").value("NEW AUTHOR"))
                 .andDo(print());
     }
+
+    @Test
+    void createWithId() throws Exception {
+        // a new author gets its id from the database, an id in the body is not used to overwrite a stored one
+        this.mockMvc
+                .perform(post("/authors")
+                        .content("{\"id\":10,\"fullName\":\"OVERWRITTEN\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT full_name FROM author WHERE id = 10", String.class)).isEqualTo("AUTHOR");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.example.newspaper.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(value = "/application-test.properties", properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+})
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class CacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void evictAll() throws Exception {
+        // the fixtures are rewritten with SQL before every test
+        this.mockMvc.perform(delete("/admin/cache"))
+                .andExpect(status().isNoContent());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findByIdIsServedFromCache() throws Exception {
+        this.mockMvc.perform(get("/articles/{id}", 10))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        this.mockMvc.perform(get("/articles/{id}", 10))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authors[0].fullName").value("AUTHOR"))
+                .andExpect(jsonPath("$.site.weblink").value("SITE"));
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void findAllIsServedFromQueryCache() throws Exception {
+        this.mockMvc.perform(get("/authors"))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        this.mockMvc.perform(get("/authors"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)));
+
+        // the ids and versions of the page for its ETag, then the page
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void updateEvictsInverseCollections() throws Exception {
+        this.mockMvc.perform(get("/authors/{id}/articles", 10))
+                .andExpect(jsonPath("$.items", hasSize(1)));
+        this.mockMvc.perform(get("/sites/{id}/articles", 10))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        this.mockMvc.perform(put("/articles/{id}", 20)
+                        .content("{\"id\":20,\"titleEnglish\":\"ARTICLE\",\"titleGerman\":\"ARTICLE2\"," +
+                                "\"issnNumber\":23,\"isbnNumber\":12,\"yearPublication\":2022,\"editionNumber\":21," +
+                                "\"authors\":[{\"id\":10,\"fullName\":\"AUTHOR\"}],\"site\":{\"id\":10,\"weblink\":\"SITE\"}}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/authors/{id}/articles", 10))
+                .andExpect(jsonPath("$.items", hasSize(2)));
+        this.mockMvc.perform(get("/sites/{id}/articles", 10))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void deleteEvictsEntity() throws Exception {
+        this.mockMvc.perform(get("/articles/{id}", 30))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(delete("/articles/{id}", 30))
+                .andExpect(status().isNoContent());
+
+        this.mockMvc.perform(get("/articles/{id}", 30))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void statistics() throws Exception {
+        this.mockMvc.perform(get("/articles/{id}", 10));
+        this.mockMvc.perform(get("/articles/{id}", 10));
+
+        this.mockMvc.perform(get("/admin/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hitCount").isNumber())
+                .andExpect(jsonPath("$.regions[?(@.name == 'article')].hitCount").isNotEmpty())
+                .andDo(print());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.repository.ChangeEventRepository;
+import com.example.newspaper.server.ChangeFeedService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A subscriber that falls behind by more events than its queue holds is dropped instead of holding up the feed.
+ * The queue holds a single event here, so one poll that publishes two events is too many.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+@TestPropertySource(value = "/application-test.properties", properties = "newspaper.change-feed.queue-capacity=1")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ChangeFeedControllerLaggingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+
+    @Test
+    void dropLaggingSubscriber() throws Exception {
+        changeFeedService.publish();
+        long start = changeEventRepository.findMaxPosition().orElse(0L);
+        MvcResult feed = this.mockMvc
+                .perform(get("/changes").header("Last-Event-ID", start))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // once the first event arrived the subscriber has read the stored events, the next ones are queued
+        update(10, "Kept");
+        changeFeedService.publish();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while(!feed.getResponse().getContentAsString().contains("id:" + (start + 1))
+                && System.currentTimeMillis() < deadline){
+            Thread.sleep(50);
+        }
+        assertThat(feed.getResponse().getContentAsString()).contains("id:" + (start + 1));
+
+        update(20, "Lagging");
+        update(40, "Lagging");
+        changeFeedService.publish();
+
+        assertThat(feed.getAsyncResult(10_000)).isInstanceOf(IllegalStateException.class);
+        assertThat(feed.getResponse().getContentAsString()).doesNotContain("id:" + (start + 2));
+    }
+
+    private void update(int id, String title) throws Exception {
+        this.mockMvc
+                .perform(put("/articles/{id}", id)
+                        .content("{\"id\":" + id + ",\"titleEnglish\":\"" + title + "\",\"titleGerman\":\"" + title + "\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+}
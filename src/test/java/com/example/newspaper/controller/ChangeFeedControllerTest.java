@@ -0,0 +1,133 @@
+package com.example.newspaper.controller;
+
+import com.example.newspaper.repository.ChangeEventRepository;
+import com.example.newspaper.server.ChangeFeedService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ChangeFeedControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+
+    @Test
+    void followChanges() throws Exception {
+        changeFeedService.publish();
+        long start = changeEventRepository.findMaxPosition().orElse(0L);
+        MvcResult feed = this.mockMvc
+                .perform(get("/changes").header("Last-Event-ID", start))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        int id = create("Followed");
+        update(id, "Followed");
+        changeFeedService.publish();
+
+        String events = awaitEvents(feed, "\"operation\":\"UPDATED\"");
+        assertThat(events)
+                .contains("id:" + (start + 1))
+                .contains("event:change")
+                .contains("{\"position\":" + (start + 1) + ",\"entityType\":\"ARTICLE\",\"entityId\":" + id
+                        + ",\"operation\":\"CREATED\",\"entityVersion\":0")
+                .contains("\"entityId\":" + id + ",\"operation\":\"UPDATED\",\"entityVersion\":1");
+    }
+
+    @Test
+    void resumeAfterLastEventId() throws Exception {
+        update(20, "Resumed");
+        changeFeedService.publish();
+        long updated = changeEventRepository.findMaxPosition().orElseThrow();
+
+        this.mockMvc
+                .perform(delete("/articles/{id}", 30))
+                .andExpect(status().isNoContent());
+        // rolled back, no event
+        this.mockMvc
+                .perform(put("/articles/{id}", 10)
+                        .content("{\"id\":10,\"version\":5,\"titleEnglish\":\"Outdated\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+        changeFeedService.publish();
+
+        MvcResult feed = this.mockMvc
+                .perform(get("/changes").header("Last-Event-ID", updated))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String events = awaitEvents(feed, "\"operation\":\"DELETED\"");
+        assertThat(events)
+                .doesNotContain("\"operation\":\"UPDATED\"")
+                .contains("id:" + (updated + 1))
+                .contains("\"entityId\":30,\"operation\":\"DELETED\",\"entityVersion\":null");
+        assertThat(changeEventRepository.findMaxPosition()).contains(updated + 1);
+    }
+
+    @Test
+    void expiredPosition() throws Exception {
+        update(20, "First");
+        update(40, "Second");
+        changeFeedService.publish();
+        changeFeedService.purgeBefore(Instant.now().plusSeconds(1));
+
+        this.mockMvc
+                .perform(get("/changes").param("after", "0"))
+                .andExpect(status().isGone());
+        this.mockMvc
+                .perform(get("/changes").param("after", String.valueOf(changeEventRepository.findMaxPosition().orElseThrow())))
+                .andExpect(request().asyncStarted());
+    }
+
+    private int create(String title) throws Exception {
+        String article = this.mockMvc
+                .perform(post("/articles")
+                        .content("{\"titleEnglish\":\"" + title + "\",\"titleGerman\":\"" + title + "\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(article, "$.id");
+    }
+
+    private void update(int id, String title) throws Exception {
+        this.mockMvc
+                .perform(put("/articles/{id}", id)
+                        .content("{\"id\":" + id + ",\"titleEnglish\":\"" + title + "\",\"titleGerman\":\"" + title + "\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    private static String awaitEvents(MvcResult feed, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        String events = feed.getResponse().getContentAsString();
+        while(!events.contains(expected) && System.currentTimeMillis() < deadline){
+            Thread.sleep(50);
+            events = feed.getResponse().getContentAsString();
+        }
+        assertThat(events).contains(expected);
+        return events;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.newspaper.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class DuplicateCheckControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void findById() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/duplicate-checks/{jobId}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void startForUnknownArticle() throws Exception {
+        this.mockMvc
+                .perform(post("/articles/{id}/duplicate-checks", 999))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void startAndPoll() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        MvcResult started = this.mockMvc
+                .perform(post("/articles/{id}/duplicate-checks", 10))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").isString())
+                .andExpect(jsonPath("$.articleId").value(10))
+                .andReturn();
+        String jobId = mapper.readTree(started.getResponse().getContentAsString()).get("id").asText();
+        assertThat(started.getResponse().getHeader(HttpHeaders.LOCATION)).endsWith("/articles/duplicate-checks/" + jobId);
+
+        JsonNode job = null;
+        for(int attempt = 0; attempt < 100; attempt++){
+            String body = this.mockMvc
+                    .perform(get("/articles/duplicate-checks/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andDo(print())
+                    .andReturn().getResponse().getContentAsString();
+            job = mapper.readTree(body);
+            if(job.get("finished").asBoolean()){
+                break;
+            }
+            Thread.sleep(50);
+        }
+
+        assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("duplicates").toString()).isEqualTo("[10,40]");
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.newspaper.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Blocks larger than the maximum block size are split by ISSN, ISBN and edition. Three of the articles share
+ * their English title, with at most two articles per block its bands are scored in the parts that share the
+ * ISSN 13 or the edition 11 and find the same clusters as without a limit. All the articles share their ISBN,
+ * that part stays too large and is skipped, which marks the result as partial.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(value = "/application-test.properties",
+        properties = "newspaper.duplicates.clustering.max-block-size=2")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class DuplicateClusterControllerOversizedBlockTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void splitsOversizedBlocks() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        String started = this.mockMvc
+                .perform(post("/articles/duplicate-clusters"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = mapper.readTree(started).get("id").asText();
+
+        JsonNode job = null;
+        for(int attempt = 0; attempt < 100; attempt++){
+            String body = this.mockMvc
+                    .perform(get("/articles/duplicate-clusters/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andDo(print())
+                    .andReturn().getResponse().getContentAsString();
+            job = mapper.readTree(body);
+            if(job.get("finished").asBoolean()){
+                break;
+            }
+            Thread.sleep(50);
+        }
+
+        assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("oversizedBlocks").asInt()).isPositive();
+        assertThat(job.get("partial").asBoolean()).isTrue();
+        assertThat(job.get("clusters").toString()).isEqualTo("[[10,30,40]]");
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.newspaper.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class DuplicateClusterControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void findById() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/duplicate-clusters/{jobId}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void startAndPoll() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        String started = this.mockMvc
+                .perform(post("/articles/duplicate-clusters"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").isString())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = mapper.readTree(started).get("id").asText();
+
+        JsonNode job = null;
+        for(int attempt = 0; attempt < 100; attempt++){
+            String body = this.mockMvc
+                    .perform(get("/articles/duplicate-clusters/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andDo(print())
+                    .andReturn().getResponse().getContentAsString();
+            job = mapper.readTree(body);
+            if(job.get("finished").asBoolean()){
+                break;
+            }
+            Thread.sleep(50);
+        }
+
+        assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("articlesScanned").asInt()).isEqualTo(4);
+        // each pair once, however many blocks it shares
+        assertThat(job.get("pairsScored").asInt()).isEqualTo(6);
+        assertThat(job.get("oversizedBlocks").asInt()).isZero();
+        assertThat(job.get("partial").asBoolean()).isFalse();
+        assertThat(job.get("clusters").toString()).isEqualTo("[[10,30,40]]");
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.newspaper.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every query counts as slow here, so the slow query log fills up with the queries of the tests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "/application-test.properties",
+        properties = "newspaper.persistence.slow-query-threshold=0ms")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class PersistenceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void reset() throws Exception {
+        this.mockMvc
+                .perform(delete("/admin/persistence"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void statistics() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/{id}", 10))
+                .andExpect(status().isOk());
+        this.mockMvc
+                .perform(get("/articles/{id}", 20))
+                .andExpect(status().isOk());
+
+        this.mockMvc
+                .perform(get("/admin/persistence"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statements", greaterThan(0)))
+                .andExpect(jsonPath("$.entityLoads", greaterThan(0)))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /articles/{id}')].requests", contains(2)))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /articles/{id}')].statements", contains(4)))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /articles/{id}')].statementsPerRequest", contains(2.0)))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /articles/{id}')].collectionFetches", contains(0)))
+                .andDo(print());
+    }
+
+    @Test
+    void slowQueries() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/{id}", 10))
+                .andExpect(status().isOk());
+
+        // the version query is logged, loading the article by id is not a query
+        this.mockMvc
+                .perform(get("/admin/persistence/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[*].endpoint", everyItem(is("GET /articles/{id}"))))
+                .andExpect(jsonPath("$[0].query", containsString("Article")))
+                .andDo(print());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.newspaper.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Like {@link ReplicaRoutingTest}, with the second-level and the query cache on: what the lagging replica
+ * serves must not be cached for the clients that read from the primary.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "/application-test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:newspaper_cached_primary",
+        "newspaper.datasource.replica.jdbc-url=jdbc:h2:mem:newspaper_cached_replica;DB_CLOSE_DELAY=-1",
+        "newspaper.datasource.replica.username=admin",
+        "newspaper.datasource.replica.password=password",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true"})
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ReplicaRoutingCacheTest {
+    private static final DataSource replica = new DriverManagerDataSource(
+            "jdbc:h2:mem:newspaper_cached_replica;DB_CLOSE_DELAY=-1", "admin", "password");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void fillReplica() throws Exception {
+        JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+        if(replicaTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'ARTICLE'",
+                Integer.class) == 0){
+            List<String> schema = jdbcTemplate.queryForList("SCRIPT NODATA", String.class);
+            schema.forEach(replicaTemplate::execute);
+        }
+        new ResourceDatabasePopulator(new ClassPathResource("create-before.sql")).execute(replica);
+        replicaTemplate.update("UPDATE article SET title_english = 'REPLICA' WHERE id = 10");
+        // the fixtures are rewritten with SQL before every test
+        this.mockMvc.perform(delete("/admin/cache"))
+                .andExpect(status().isNoContent());
+    }
+
+    @AfterEach
+    void clearReplica() {
+        new ResourceDatabasePopulator(new ClassPathResource("create-after.sql")).execute(replica);
+    }
+
+    @Test
+    void replicaReadsAreNotCached() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titleEnglish", is("REPLICA")));
+
+        this.mockMvc
+                .perform(get("/articles/10").cookie(lastWrite()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titleEnglish", is("ARTICLE")));
+    }
+
+    @Test
+    void replicaQueryResultsAreNotCached() throws Exception {
+        // the replica has not caught up with an update of the article yet, the page has another ETag there
+        new JdbcTemplate(replica).update("UPDATE article SET version = version + 1 WHERE id = 10");
+        String replicaTag = this.mockMvc
+                .perform(get("/articles"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc
+                .perform(get("/articles").cookie(lastWrite()).header(HttpHeaders.IF_NONE_MATCH, replicaTag))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].titleEnglish", is("ARTICLE")));
+    }
+
+    @Test
+    void primaryReadsAreCached() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/10").cookie(lastWrite()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titleEnglish", is("ARTICLE")));
+
+        // the replica reads from the cache, it only does not fill it
+        this.mockMvc
+                .perform(get("/articles/10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titleEnglish", is("ARTICLE")));
+    }
+
+    private static Cookie lastWrite(){
+        return new Cookie(ReplicaReadsInterceptor.LAST_WRITE_COOKIE, String.valueOf(System.currentTimeMillis()));
+    }
+}
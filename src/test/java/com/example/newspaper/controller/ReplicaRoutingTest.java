@@ -0,0 +1,131 @@
+package com.example.newspaper.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two H2 databases stand in for the primary and the replica. The replica is written behind the
+ * application's back and differs from the primary, so each response shows which database served it;
+ * nothing replicates between them, the replica lags forever.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "/application-test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:newspaper_primary",
+        "newspaper.datasource.replica.jdbc-url=jdbc:h2:mem:newspaper_replica;DB_CLOSE_DELAY=-1",
+        "newspaper.datasource.replica.username=admin",
+        "newspaper.datasource.replica.password=password"})
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ReplicaRoutingTest {
+    private static final DataSource replica = new DriverManagerDataSource(
+            "jdbc:h2:mem:newspaper_replica;DB_CLOSE_DELAY=-1", "admin", "password");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void fillReplica() {
+        JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+        if(replicaTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'ARTICLE'",
+                Integer.class) == 0){
+            List<String> schema = jdbcTemplate.queryForList("SCRIPT NODATA", String.class);
+            schema.forEach(replicaTemplate::execute);
+        }
+        new ResourceDatabasePopulator(new ClassPathResource("create-before.sql")).execute(replica);
+        replicaTemplate.update("UPDATE article SET title_english = 'REPLICA' WHERE id = 10");
+    }
+
+    @AfterEach
+    void clearReplica() {
+        new ResourceDatabasePopulator(new ClassPathResource("create-after.sql")).execute(replica);
+    }
+
+    @Test
+    void readsFromReplica() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titleEnglish", is("REPLICA")));
+
+        this.mockMvc
+                .perform(get("/articles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].titleEnglish", is("REPLICA")));
+    }
+
+    @Test
+    void duplicatesAreWrittenToPrimary() throws Exception {
+        this.mockMvc
+                .perform(get("/articles/10/duplicates"))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM duplicate_edge WHERE article_id = 10", Integer.class))
+                .isPositive();
+        assertThat(new JdbcTemplate(replica).queryForObject("SELECT COUNT(*) FROM duplicate_edge", Integer.class))
+                .isZero();
+    }
+
+    @Test
+    void readsOwnWritesFromPrimary() throws Exception {
+        Cookie lastWrite = this.mockMvc
+                .perform(delete("/articles/30"))
+                .andDo(print())
+                .andExpect(status().isNoContent())
+                .andExpect(cookie().exists(ReplicaReadsInterceptor.LAST_WRITE_COOKIE))
+                .andReturn().getResponse().getCookie(ReplicaReadsInterceptor.LAST_WRITE_COOKIE);
+
+        this.mockMvc
+                .perform(get("/articles/30").cookie(lastWrite))
+                .andExpect(status().isNotFound());
+        this.mockMvc
+                .perform(get("/articles/10").cookie(lastWrite))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titleEnglish", is("ARTICLE")));
+
+        // other clients read from the replica, which has not caught up with the delete
+        this.mockMvc
+                .perform(get("/articles/30"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void expiredWriteReadsFromReplica() throws Exception {
+        Cookie lastWrite = new Cookie(ReplicaReadsInterceptor.LAST_WRITE_COOKIE,
+                String.valueOf(System.currentTimeMillis() - 60_000));
+
+        this.mockMvc
+                .perform(get("/articles/10").cookie(lastWrite))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titleEnglish", is("REPLICA")));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.newspaper.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compression is done by the servlet container, so these requests go through a real server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ResponseCompressionTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compressesLargeJson() {
+        jdbcTemplate.update("INSERT INTO article(id, edition_number, isbn_number, issn_number, title_english, title_german, year_publication) " +
+                "SELECT x, 1, 2, 3, 'TITLE ' || x, 'TITEL ' || x, 2000 FROM SYSTEM_RANGE(100, 199)");
+
+        ResponseEntity<byte[]> response = get("/articles?size=100", "application/json");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    }
+
+    @Test
+    void sendsSmallJsonUncompressed() {
+        ResponseEntity<byte[]> response = get("/authors/10", "application/json");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+    }
+
+    @Test
+    void sendsBinaryFormatsUncompressed() {
+        jdbcTemplate.update("INSERT INTO article(id, edition_number, isbn_number, issn_number, title_english, title_german, year_publication) " +
+                "SELECT x, 1, 2, 3, 'TITLE ' || x, 'TITEL ' || x, 2000 FROM SYSTEM_RANGE(100, 199)");
+
+        ResponseEntity<byte[]> response = get("/articles?size=100", "application/x-jackson-smile");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+    }
+
+    private ResponseEntity<byte[]> get(String path, String accept){
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, accept);
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+}
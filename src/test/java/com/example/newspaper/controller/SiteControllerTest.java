@@ -7,7 +7,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
@@ -21,6 +23,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.isA;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -37,6 +40,9 @@ class SiteControllerTest {
     @Autowired
     private SiteController siteController;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
 
     @Test
     void contextLoads() {
@@ -59,6 +65,44 @@ class SiteControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(10))
                 .andExpect(jsonPath("$.weblink").value("SITE"))
+                .andExpect(jsonPath("$.articles").doesNotExist())
+                .andDo(print());
+    }
+
+    @Test
+    void findByIdNotModified() throws Exception {
+        String entityTag = this.mockMvc
+                .perform(get("/sites/{id}", 10))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc
+                .perform(get("/sites/{id}", 10).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isNotModified());
+
+        // the articles are not part of the site, an article joining it leaves its representation as it is
+        jdbcTemplate.update("INSERT INTO article_site(article_id, site_id) VALUES(20, 10)");
+        this.mockMvc
+                .perform(get("/sites/{id}", 10).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isNotModified());
+
+        // a change of the site itself does not
+        jdbcTemplate.update("UPDATE site SET weblink = 'RENAMED', version = version + 1 WHERE id = 10");
+        this.mockMvc
+                .perform(get("/sites/{id}", 10).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void findAllFields() throws Exception {
+        this.mockMvc
+                .perform(get("/sites").param("fields", "weblink,id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].weblink").value("SITE"))
+                .andExpect(jsonPath("$.items[0].id").value(10))
+                .andExpect(jsonPath("$.items[0].articles").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
                 .andDo(print());
     }
 
@@ -69,22 +113,35 @@ class SiteControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void updateAndDeleteUnknownId() throws Exception {
+        this.mockMvc
+                .perform(put("/sites/{id}", 999)
+                        .content("{\"id\":999}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+
+        this.mockMvc
+                .perform(delete("/sites/{id}", 999))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void update() throws Exception {
         ObjectMapper mapper = new ObjectMapper();
 
         Site site = new Site();
-        site.setId(1);
+        site.setId(10);
         site.setWeblink("SITE UPDATE");
 
 
         this.mockMvc
-                .perform(put("/sites/{id}", 1)
+                .perform(put("/sites/{id}", 10)
                         .content(mapper.writeValueAsString(site))
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.id").value(10))
                 .andExpect(jsonPath("$.weblink").value("SITE UPDATE"))
                 .andDo(print());
     }
@@ -107,6 +164,18 @@ class SiteControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    void createWithId() throws Exception {
+        // a new site gets its id from the database, an id in the body is not used to overwrite a stored one
+        this.mockMvc
+                .perform(post("/sites")
+                        .content("{\"id\":10,\"weblink\":\"OVERWRITTEN\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT weblink FROM site WHERE id = 10", String.class)).isEqualTo("SITE");
+    }
+
     @Test
     void allArticlesSite() throws Exception {
         this.mockMvc
@@ -124,6 +193,35 @@ class SiteControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    void allArticlesSitePaged() throws Exception {
+        jdbcTemplate.update("INSERT INTO article_site(article_id, site_id) VALUES(20, 10), (30, 10), (40, 10)");
+
+        this.mockMvc
+                .perform(get("/sites/{id}/articles", 10)
+                        .param("size", "2")
+                        .param("sort", "yearPublication,desc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "4"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andExpect(jsonPath("$[1].id").value(30));
+
+        this.mockMvc
+                .perform(get("/sites/{id}/articles", 10)
+                        .param("size", "2")
+                        .param("page", "1")
+                        .param("sort", "yearPublication,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(20))
+                .andExpect(jsonPath("$[1].id").value(40))
+                .andDo(print());
+
+        this.mockMvc
+                .perform(get("/sites/{id}/articles", 10).param("sort", "authors"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void updateListArticle() throws Exception {
         ObjectMapper mapper = new ObjectMapper();
@@ -146,7 +244,82 @@ class SiteControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(jsonPath("$.add", hasSize(1)))
+                .andExpect(jsonPath("$.remove[0]").value(10))
                 .andDo(print());
 
+        assertThat(jdbcTemplate.queryForList("SELECT article_id FROM article_site WHERE site_id = 10", Integer.class))
+                .hasSize(1)
+                .doesNotContain(10);
+    }
+
+    @Test
+    void updateArticles() throws Exception {
+        this.mockMvc
+                .perform(patch("/sites/{id}/articles", 10)
+                        .content("{\"add\":[20,30,10],\"remove\":[40]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.add", hasSize(2)))
+                .andExpect(jsonPath("$.add[0]").value(20))
+                .andExpect(jsonPath("$.add[1]").value(30))
+                .andExpect(jsonPath("$.remove", hasSize(0)))
+                .andDo(print());
+
+        this.mockMvc
+                .perform(patch("/sites/{id}/articles", 10)
+                        .content("{\"add\":null,\"remove\":[10]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.add", hasSize(0)))
+                .andExpect(jsonPath("$.remove[0]").value(10));
+
+        assertThat(jdbcTemplate.queryForList("SELECT article_id FROM article_site WHERE site_id = 10 ORDER BY article_id",
+                Integer.class)).containsExactly(20, 30);
+        // articles that were already in place (or not in the site to remove them from) are not written
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM article WHERE id = 40", Long.class)).isZero();
+    }
+
+    @Test
+    void articlesJoiningOrLeavingDoNotWriteTheSite() throws Exception {
+        this.mockMvc
+                .perform(patch("/sites/{id}/articles", 10)
+                        .content("{\"add\":[20],\"remove\":[10]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        this.mockMvc
+                .perform(delete("/articles/{id}", 10))
+                .andExpect(status().isNoContent());
+
+        // the site and the author are neither locked nor written, only the articles and the join rows are
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM site WHERE id = 10", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM author WHERE id = 10", Long.class)).isZero();
+    }
+
+    @Test
+    void updateArticlesBadRequest() throws Exception {
+        this.mockMvc
+                .perform(patch("/sites/{id}/articles", 10)
+                        .content("{\"add\":[999]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc
+                .perform(patch("/sites/{id}/articles", 10)
+                        .content("{\"add\":[20],\"remove\":[20]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc
+                .perform(patch("/sites/{id}/articles", 10)
+                        .content("{\"add\":[20,null]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc
+                .perform(patch("/sites/{id}/articles", 999)
+                        .content("{\"add\":[20]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
     }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.example.newspaper.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class StatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findCounts() throws Exception {
+        this.mockMvc
+                .perform(get("/stats/years"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].bucket").value(2020))
+                .andExpect(jsonPath("$.items[0].articles").value(1))
+                .andExpect(jsonPath("$.items[2].bucket").value(2023))
+                .andExpect(jsonPath("$.items[2].articles").value(2));
+
+        this.mockMvc
+                .perform(get("/stats/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findCountsPaged() throws Exception {
+        String firstPage = this.mockMvc
+                .perform(get("/stats/years").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].bucket").value(2020))
+                .andExpect(jsonPath("$.items[1].bucket").value(2022))
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+
+        this.mockMvc
+                .perform(get("/stats/years").param("size", "2").param("cursor", JsonPath.<String>read(firstPage, "$.nextCursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].bucket").value(2023))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        this.mockMvc
+                .perform(get("/stats/years").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void countsFollowCreate() throws Exception {
+        String article = "{\"titleEnglish\":\"New\",\"titleGerman\":\"Neu\",\"yearPublication\":2024,\"editionNumber\":11," +
+                "\"authors\":[{\"id\":10}]}";
+        String created = this.mockMvc
+                .perform(post("/articles").content(article).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.read(created, "$.id");
+
+        this.mockMvc
+                .perform(patch("/sites/{id}/articles", 10)
+                        .content("{\"add\":[" + id + "]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        this.mockMvc
+                .perform(get("/stats/years"))
+                .andExpect(jsonPath("$.items", hasSize(4)))
+                .andExpect(jsonPath("$.items[3].bucket").value(2024))
+                .andExpect(jsonPath("$.items[3].articles").value(1));
+        this.mockMvc
+                .perform(get("/stats/editions"))
+                .andExpect(jsonPath("$.items[0].bucket").value(11))
+                .andExpect(jsonPath("$.items[0].articles").value(4));
+        this.mockMvc
+                .perform(get("/stats/authors"))
+                .andExpect(jsonPath("$.items[0].bucket").value(10))
+                .andExpect(jsonPath("$.items[0].articles").value(2));
+        this.mockMvc
+                .perform(get("/stats/sites"))
+                .andExpect(jsonPath("$.items[0].bucket").value(10))
+                .andExpect(jsonPath("$.items[0].articles").value(2));
+    }
+
+    @Test
+    void countsFollowUpdate() throws Exception {
+        String article = "{\"id\":10,\"titleEnglish\":\"ARTICLE\",\"titleGerman\":\"ARTICLE\",\"yearPublication\":2021," +
+                "\"editionNumber\":11}";
+        this.mockMvc
+                .perform(put("/articles/{id}", 10).content(article).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        this.mockMvc
+                .perform(get("/stats/years"))
+                .andExpect(jsonPath("$.items", hasSize(4)))
+                .andExpect(jsonPath("$.items[1].bucket").value(2021))
+                .andExpect(jsonPath("$.items[1].articles").value(1))
+                .andExpect(jsonPath("$.items[3].bucket").value(2023))
+                .andExpect(jsonPath("$.items[3].articles").value(1));
+        this.mockMvc
+                .perform(get("/stats/editions"))
+                .andExpect(jsonPath("$.items[0].articles").value(3));
+        this.mockMvc
+                .perform(get("/stats/authors"))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+        this.mockMvc
+                .perform(get("/stats/sites"))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
+    @Test
+    void countsFollowDelete() throws Exception {
+        this.mockMvc
+                .perform(delete("/articles/{id}", 10))
+                .andExpect(status().isNoContent());
+
+        this.mockMvc
+                .perform(get("/stats/years"))
+                .andExpect(jsonPath("$.items[2].bucket").value(2023))
+                .andExpect(jsonPath("$.items[2].articles").value(1));
+        this.mockMvc
+                .perform(get("/stats/editions"))
+                .andExpect(jsonPath("$.items[0].articles").value(2));
+        this.mockMvc
+                .perform(get("/stats/authors"))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+        this.mockMvc
+                .perform(get("/stats/sites"))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
+    @Test
+    void rebuild() throws Exception {
+        jdbcTemplate.update("INSERT INTO article(id, edition_number, title_english, year_publication) VALUES(50, 21, 'SQL', 2022)");
+        jdbcTemplate.update("INSERT INTO article_author(article_id, author_id) VALUES(50, 10)");
+
+        this.mockMvc
+                .perform(post("/stats/rebuild"))
+                .andExpect(status().isNoContent());
+
+        this.mockMvc
+                .perform(get("/stats/years"))
+                .andExpect(jsonPath("$.items[1].bucket").value(2022))
+                .andExpect(jsonPath("$.items[1].articles").value(2));
+        this.mockMvc
+                .perform(get("/stats/authors"))
+                .andExpect(jsonPath("$.items[0].articles").value(2));
+    }
+}
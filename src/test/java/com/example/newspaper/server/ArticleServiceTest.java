@@ -0,0 +1,92 @@
+package com.example.newspaper.server;
+
+import com.example.newspaper.entity.Article;
+import com.example.newspaper.entity.Author;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The candidates of a searched article: a duplicate has to share a title or the ISSN, ISBN, edition
+ * and an author, an article that shares less is not looked at. The searched article is not stored,
+ * it shares ISSN 13, ISBN 12, edition 11 and author 10 with the stored article 10.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("/application-test.properties")
+@Sql(value = {"/create-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/create-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ArticleServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Test
+    void findCandidateIdsByTitle() throws Exception {
+        // a duplicate by the title, the ISSN, the ISBN, the author and the year, with another edition
+        int id = create("{\"titleEnglish\":\"PROBE\",\"titleGerman\":\"PROBE\",\"issnNumber\":13,\"isbnNumber\":12," +
+                "\"editionNumber\":99,\"yearPublication\":2023,\"authors\":[{\"id\":10}]}");
+
+        assertThat(articleService.findCandidateIds(probe())).containsExactlyInAnyOrder(10, id);
+        assertThat(articleService.listDuplicates(probe())).extracting(Article::getId).contains(id);
+    }
+
+    @Test
+    void findCandidateIdsByIdentifiersAndAuthor() throws Exception {
+        // a duplicate by the ISSN, the ISBN, the edition, the author and the year, with another title
+        int id = create("{\"titleEnglish\":\"OTHER\",\"titleGerman\":\"ANDERE\",\"issnNumber\":13,\"isbnNumber\":12," +
+                "\"editionNumber\":11,\"yearPublication\":2023,\"authors\":[{\"id\":10}]}");
+
+        assertThat(articleService.findCandidateIds(probe())).containsExactlyInAnyOrder(10, id);
+        assertThat(articleService.listDuplicates(probe())).extracting(Article::getId).containsExactlyInAnyOrder(10, id);
+    }
+
+    @Test
+    void findCandidateIdsSkipsSharedIssn() throws Exception {
+        int id = create("{\"titleEnglish\":\"UNRELATED\",\"titleGerman\":\"UNVERWANDT\",\"issnNumber\":13,\"isbnNumber\":99," +
+                "\"editionNumber\":99,\"yearPublication\":1999}");
+
+        assertThat(articleService.findCandidateIds(probe())).containsExactly(10);
+        assertThat(articleService.listDuplicates(probe())).extracting(Article::getId).doesNotContain(id);
+    }
+
+    private Article probe(){
+        Article article = new Article();
+        article.setTitleEnglish("PROBE");
+        article.setTitleGerman("PROBE");
+        article.setIssnNumber(13);
+        article.setIsbnNumber(12);
+        article.setEditionNumber(11);
+        article.setYearPublication(2023);
+        Author author = new Author();
+        author.setId(10);
+        author.setFullName("AUTHOR");
+        article.setAuthors(Set.of(author));
+        return article;
+    }
+
+    private int create(String article) throws Exception {
+        String body = this.mockMvc
+                .perform(post("/articles")
+                        .content(article)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return new ObjectMapper().readTree(body).get("id").asInt();
+    }
+}
@@ -1,3 +1,6 @@
+DELETE FROM article_count;
+DELETE FROM duplicate_edge;
+DELETE FROM article_title_band;
 DELETE FROM article_author;
 DELETE FROM article_site;
 
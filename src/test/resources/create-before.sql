@@ -1,3 +1,6 @@
+DELETE FROM article_count;
+DELETE FROM duplicate_edge;
+DELETE FROM article_title_band;
 DELETE FROM article_author;
 DELETE FROM article_site;
 
@@ -5,8 +8,8 @@ DELETE FROM article;
 DELETE FROM site;
 DELETE FROM author;
 
-INSERT INTO author(id, full_name)
-            VALUES(10, 'AUTHOR');
+INSERT INTO author(id, full_name, normalized_name)
+            VALUES(10, 'AUTHOR', 'author');
 INSERT INTO site(id, weblink)
             VALUES(10, 'SITE');
 INSERT INTO article(id, edition_number, isbn_number, issn_number, title_english, title_german, year_publication) VALUES
@@ -16,4 +19,10 @@ INSERT INTO article(id, edition_number, isbn_number, issn_number, title_english,
             (40, 11, 12, 13, 'ARTICLE', 'ARTICLE_GER', 2020);
 
 INSERT INTO article_author(article_id, author_id) VALUES(10, 10);
-INSERT INTO article_site(article_id, site_id) VALUES(10, 10);
\ No newline at end of file
+INSERT INTO article_site(article_id, site_id) VALUES(10, 10);
+
+INSERT INTO article_count(dimension, bucket, articles) VALUES
+            ('YEAR', 2020, 1), ('YEAR', 2022, 1), ('YEAR', 2023, 2),
+            ('EDITION', 11, 3), ('EDITION', 21, 1),
+            ('SITE', 10, 1),
+            ('AUTHOR', 10, 1);
\ No newline at end of file